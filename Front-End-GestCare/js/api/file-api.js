@@ -18,10 +18,19 @@ const TIPO_PARA_ID = {
 };
 
 // ── GET: listar arquivos de um paciente ──────────────────────────
+// A API devolve páginas ({ items, next }); percorre todas pelo cursor
 async function getFilesByPatient(patientId) {
-    const response = await fetch(`${FILE_API_URL}/patient/${patientId}`);
-    if (!response.ok) throw new Error(response.status);
-    return response.json();
+    const files = [];
+    let cursor = null;
+    do {
+        const query = cursor ? `?size=100&cursor=${encodeURIComponent(cursor)}` : "?size=100";
+        const response = await fetch(`${FILE_API_URL}/patient/${patientId}${query}`);
+        if (!response.ok) throw new Error(response.status);
+        const page = await response.json();
+        files.push(...page.items);
+        cursor = page.next;
+    } while (cursor);
+    return files;
 }
 
 // ── POST: criar novo documento ───────────────────────────────────
@@ -65,3 +74,52 @@ async function deleteFile(fileId) {
     if (!response.ok) throw new Error(response.status);
     return true;
 }
+
+// ── POST/PUT: upload em partes (arquivos grandes) ────────────────
+// Envia o arquivo em pedaços de CHUNK_SIZE; se a conexão cair,
+// consulta o offset confirmado no servidor e continua dali.
+const CHUNK_SIZE = 5 * 1024 * 1024;
+
+async function createFileChunked(file, hospitalId, fileTypeId, fileDate, description) {
+    const initResponse = await fetch(`${FILE_API_URL}/upload/sessions`, {
+        method: "POST",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ fileName: file.name, totalSize: file.size })
+    });
+    if (!initResponse.ok) throw new Error(initResponse.status);
+    const session = await initResponse.json();
+
+    let offset = 0;
+    let retries = 0;
+    while (offset < file.size) {
+        try {
+            const chunk = file.slice(offset, offset + CHUNK_SIZE);
+            const response = await fetch(`${FILE_API_URL}/upload/sessions/${session.uploadId}?offset=${offset}`, {
+                method: "PUT",
+                headers: { "Content-Type": "application/octet-stream" },
+                body: chunk
+            });
+            if (!response.ok) throw new Error(response.status);
+            offset = (await response.json()).offset;
+            retries = 0;
+        } catch (err) {
+            if (++retries > 5) throw err;
+            const status = await fetch(`${FILE_API_URL}/upload/sessions/${session.uploadId}`);
+            if (!status.ok) throw err;
+            offset = (await status.json()).offset;
+        }
+    }
+
+    const formData = new FormData();
+    formData.append("hospitalId", hospitalId);
+    formData.append("fileTypeId", fileTypeId);
+    formData.append("fileDate", fileDate);
+    formData.append("description", description);
+
+    const response = await fetch(`${FILE_API_URL}/upload/sessions/${session.uploadId}/complete`, {
+        method: "POST",
+        body: formData
+    });
+    if (!response.ok) throw new Error(response.status);
+    return response.json();
+}
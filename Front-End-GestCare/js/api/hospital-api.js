@@ -21,14 +21,24 @@ async function createHospital(hospital) {
     }
 }
 
+// A API devolve páginas ({ items, next }); percorre todas pelo cursor
 async function getHospitalsByPatient(patientId) {
-    const response = await fetch(`${API_URL}/patient/${patientId}`);
+    const hospitals = [];
+    let cursor = null;
+    do {
+        const query = cursor ? `?size=100&cursor=${encodeURIComponent(cursor)}` : "?size=100";
+        const response = await fetch(`${API_URL}/patient/${patientId}${query}`);
 
-    if (!response.ok) {
-        throw new Error(response.status);
-    }
+        if (!response.ok) {
+            throw new Error(response.status);
+        }
 
-    return response.json();
+        const page = await response.json();
+        hospitals.push(...page.items);
+        cursor = page.next;
+    } while (cursor);
+
+    return hospitals;
 }
 
 async function updateHospital(id, hospital, patientId) {
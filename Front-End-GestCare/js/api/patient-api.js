@@ -0,0 +1,15 @@
+/* ========================================
+   GESTCARE - PATIENT API
+   Endpoints: GET /patient/{id}/summary
+   Base: http://localhost:8080/patient
+   ======================================== */
+
+const PATIENT_API_URL = "http://localhost:8080/patient";
+
+// ── GET: painel do paciente numa chamada só ──────────────────────
+// Hospitais com contagem de documentos, contagem por tipo e os últimos documentos
+async function getPatientSummary(patientId, latest = 5) {
+    const response = await fetch(`${PATIENT_API_URL}/${patientId}/summary?latest=${latest}`);
+    if (!response.ok) throw new Error(response.status);
+    return response.json();
+}
@@ -0,0 +1,64 @@
+/* ========================================
+   GESTCARE - SESSÃO
+   Token de acesso do /auth/login (sessionStorage)
+   ======================================== */
+
+const GESTCARE_API_ORIGIN = "http://localhost:8080";
+
+function getAccessToken() {
+    return sessionStorage.getItem("gestcare.token");
+}
+
+// Paciente logado; sem sessão volta para o login
+function currentPatientId() {
+    const patientId = sessionStorage.getItem("gestcare.patientId");
+    if (!patientId || !getAccessToken()) {
+        window.location.href = "index.html";
+        return null;
+    }
+    return Number(patientId);
+}
+
+// Para links abertos direto pelo navegador (window.open), que não mandam o cabeçalho
+function withAccessToken(url) {
+    const token = getAccessToken();
+    if (!token) return url;
+    return url + (url.includes("?") ? "&" : "?") + "access_token=" + encodeURIComponent(token);
+}
+
+// Toda chamada à API leva o token; 401 (token expirado ou revogado) volta para o login
+(function () {
+    const originalFetch = window.fetch.bind(window);
+    window.fetch = async function (input, init) {
+        const url = typeof input === "string" ? input : input.url;
+        if (!url.startsWith(GESTCARE_API_ORIGIN) || !getAccessToken()) {
+            return originalFetch(input, init);
+        }
+        const options = Object.assign({}, init);
+        const headers = new Headers(options.headers || {});
+        headers.set("Authorization", "Bearer " + getAccessToken());
+        options.headers = headers;
+
+        const response = await originalFetch(input, options);
+        if (response.status === 401) {
+            sessionStorage.removeItem("gestcare.token");
+            sessionStorage.removeItem("gestcare.patientId");
+            window.location.href = "index.html";
+        }
+        return response;
+    };
+})();
+
+// "Sair": revoga o token no servidor antes de voltar para o login
+document.addEventListener("click", function (e) {
+    const link = e.target.closest ? e.target.closest(".logout-item") : null;
+    if (!link || !getAccessToken()) return;
+    e.preventDefault();
+    fetch(GESTCARE_API_ORIGIN + "/auth/logout", { method: "POST" })
+        .catch(function () { /* o token expira sozinho */ })
+        .finally(function () {
+            sessionStorage.removeItem("gestcare.token");
+            sessionStorage.removeItem("gestcare.patientId");
+            window.location.href = link.getAttribute("href");
+        });
+});
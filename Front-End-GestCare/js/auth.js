@@ -88,8 +88,30 @@ function setupLoginForm() {
                     return;
                 }
 
-                showMessage('login-message', '✅ Login realizado com sucesso!', 'success');
-                setTimeout(function () { window.location.href = 'dashboard.html'; }, 1000);
+                fetch('http://localhost:8080/auth/login', {
+                    method: 'POST',
+                    headers: { 'Content-Type': 'application/json' },
+                    body: JSON.stringify({ login: email, password: password })
+                }).then(function (response) {
+                    if (response.status === 401) {
+                        showMessage('login-message', '⚠️ E-mail ou senha inválidos.', 'error');
+                        return;
+                    }
+                    if (response.status === 503) {
+                        showMessage('login-message', '⚠️ Muitas tentativas no momento. Tente novamente em instantes.', 'error');
+                        return;
+                    }
+                    if (!response.ok) throw new Error(response.status);
+                    return response.json().then(function (patient) {
+                        sessionStorage.setItem('gestcare.patientId', String(patient.patientId));
+                        sessionStorage.setItem('gestcare.token', patient.accessToken);
+                        showMessage('login-message', '✅ Login realizado com sucesso!', 'success');
+                        setTimeout(function () { window.location.href = 'dashboard.html'; }, 1000);
+                    });
+                }).catch(function (err) {
+                    console.error('[GestCare] Erro no login:', err);
+                    showMessage('login-message', '⚠️ Erro inesperado. Tente novamente.', 'error');
+                });
             } catch (err) {
                 console.error('[GestCare] Erro no login:', err);
                 showMessage('login-message', '⚠️ Erro inesperado. Tente novamente.', 'error');
@@ -18,6 +18,8 @@ function resolveHospitalNome(d) {
     if (d.hospital && (d.hospital.name || d.hospital.nome)) {
         return d.hospital.name || d.hospital.nome;
     }
+    // listagem da API: só o id e o nome do hospital
+    if (d.hospitalName) return d.hospitalName;
     // fallback para formato local antigo
     var h = hospitais.find(function (h) { return h.id == d.hospitalId; });
     return h ? (h.name || h.nome || 'Desconhecido') : 'Desconhecido';
@@ -31,6 +33,7 @@ function resolveTipo(d) {
         
         return d.fileType.name || d.fileType.nome || '—';
     }
+    if (d.fileTypeName) return d.fileTypeName;
     // 2. Fallback para caso o dado venha de um formulário local/antigo
     return d.tipo || '—';
 }
@@ -114,7 +117,7 @@ function renderDocs(list) {
             '<td><span class="file-badge ' + getFileClass(ext) + '">' + ext.toUpperCase() + '</span></td>' +
             '<td class="actions-cell">' + 
             // NOVO BOTÃO: VISUALIZAR
-            '<button class="action-btn" title="Visualizar" onclick="viewDoc(\'' + d.fileName + '\')">' +
+            '<button class="action-btn" title="Visualizar" onclick="viewDoc(' + d.id + ')">' +
             '<svg viewBox="0 0 24 24" fill="none" stroke="currentColor" stroke-width="2" width="16" height="16">' +
             '<path d="M1 12s4-8 11-8 11 8 11 8-4 8-11 8-11-8-11-8z"/><circle cx="12" cy="12" r="3"/></svg>' +
             '</button>' +
@@ -304,18 +307,17 @@ function editDoc(id) {
 
 // ======== Visualizar Documento (API) ========
 
-function viewDoc(fileName) {
-    if (!fileName || fileName === '—') {
+function viewDoc(id) {
+    if (!id) {
         alert("Arquivo não disponível para visualização.");
         return;
     }
     
-    // Onde 8080 é a porta do seu Spring Boot
-    const baseUrl = "http://localhost:8080/files/";
-    const fileUrl = baseUrl + fileName;
+    // O visualizador de PDF do navegador busca o arquivo por partes (HTTP Range)
+    const fileUrl = FILE_API_URL + "/" + id + "/content";
     
     // Abre o arquivo em uma nova aba
-    window.open(fileUrl, '_blank');
+    window.open(withAccessToken(fileUrl), '_blank');
 }
 
 // ======== EXCLUIR DOCUMENTO (API) ========
@@ -352,7 +354,7 @@ document.addEventListener('click', function (e) {
 
 // ======== INICIALIZAR ========
 document.addEventListener('DOMContentLoaded', async function () {
-    const patientId = 1; // TODO: substituir pelo ID real do paciente logado
+    const patientId = currentPatientId();
 
     // Hospitais (independente)
     try {
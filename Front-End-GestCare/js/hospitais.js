@@ -180,7 +180,7 @@ function closeModal() {
 // ======== SALVAR (CRIAR/EDITAR) ========
 async function saveHospital(e) {
     try {
-        const patientId = 1;
+        const patientId = currentPatientId();
         e.preventDefault();
 
         var id = document.getElementById('hospital-id').value;
@@ -226,6 +226,10 @@ async function saveHospital(e) {
 
         if (id && id.trim() !== "") {
 
+            // Versão lida na listagem: se outra pessoa alterou o hospital depois, o servidor recusa (412)
+            const atual = hospitais.find(h => String(h.id) === String(id));
+            if (atual && atual.version != null) hospital.version = atual.version;
+
             response = await updateHospital(id, hospital, patientId);
             alert("Hospital atualizado com sucesso!");
 
@@ -241,7 +245,10 @@ async function saveHospital(e) {
     } catch (error) {
 
         // Tratamento inteligente de erro HTTP
-        if (error.message.includes("409")) {
+        if (error.message.includes("412")) {
+            alert("Este hospital foi alterado em outra janela. A lista será recarregada; confira e edite de novo.");
+            await carregarHospitais();
+        } else if (error.message.includes("409")) {
             alert("Já existe um hospital com este CNPJ.");
         } else {
             alert("Erro ao salvar hospital.");
@@ -253,7 +260,7 @@ async function saveHospital(e) {
 
 async function carregarHospitais() {
     try {
-        const patientId = 1; // temporário até ter login
+        const patientId = currentPatientId();
         hospitais = await getHospitalsByPatient(patientId);
         renderHospitais();
     } catch (error) {
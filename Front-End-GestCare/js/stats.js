@@ -10,8 +10,9 @@
 // =============================================
 
 class StatsAnimator {
-    constructor() {
+    constructor(targets) {
         this.animated = false;
+        this.targets = targets || { hospitais: 3, documentos: 18, exames: 7, receitas: 4 };
         this.init();
     }
 
@@ -30,10 +31,10 @@ class StatsAnimator {
     }
 
     animateAll() {
-        this.animateValue('stat-hospitais-val', 0, 3, 1000);
-        this.animateValue('stat-documentos-val', 0, 18, 1200);
-        this.animateValue('stat-exames-val', 0, 7, 1000);
-        this.animateValue('stat-receitas-val', 0, 4, 800);
+        this.animateValue('stat-hospitais-val', 0, this.targets.hospitais, 1000);
+        this.animateValue('stat-documentos-val', 0, this.targets.documentos, 1200);
+        this.animateValue('stat-exames-val', 0, this.targets.exames, 1000);
+        this.animateValue('stat-receitas-val', 0, this.targets.receitas, 800);
     }
 
     animateValue(elementId, start, end, duration, suffix = '') {
@@ -59,7 +60,7 @@ class StatsAnimator {
 // SAUDAÇÃO DINÂMICA
 // =============================================
 
-function updateGreeting() {
+function updateGreeting(name = 'André') {
     const h1 = document.querySelector('.welcome-text h1');
     if (!h1) return;
 
@@ -70,7 +71,54 @@ function updateGreeting() {
     else if (hour >= 12 && hour < 18) greeting = 'Boa tarde';
     else greeting = 'Boa noite';
 
-    h1.textContent = `${greeting}, André! 👋`;
+    h1.textContent = `${greeting}, ${name}! 👋`;
+}
+
+// =============================================
+// RESUMO DO PACIENTE (GET /patient/{id}/summary)
+// =============================================
+
+// Contagem de um tipo de documento pelo nome ("exame", "receita"...)
+function countByType(summary, tipo) {
+    const found = summary.fileTypes.find(t => (t.name || '').toLowerCase() === tipo);
+    return found ? found.files : 0;
+}
+
+function escapeStatsHTML(str) {
+    const div = document.createElement('div');
+    div.textContent = str || '';
+    return div.innerHTML;
+}
+
+function formatStatsDate(dateStr) {
+    if (!dateStr) return '—';
+    const parts = String(dateStr).split('T')[0].split('-');
+    return parts.length < 3 ? dateStr : `${parts[2]}/${parts[1]}/${parts[0]}`;
+}
+
+// Substitui as linhas de exemplo da tabela pelos últimos documentos do paciente
+function renderLatestDocs(files) {
+    const tbody = document.querySelector('#docs-table tbody');
+    if (!tbody) return;
+
+    tbody.innerHTML = files.map(d => {
+        const tipo = (d.fileTypeName || '—').toLowerCase();
+        const parts = (d.fileName || '').split('.');
+        const ext = parts.length > 1 ? parts.pop().toLowerCase() : '?';
+        return '<tr>' +
+            `<td class="time-cell">${formatStatsDate(d.fileDate)}</td>` +
+            `<td><span class="doc-type-badge ${escapeStatsHTML(tipo)}">${escapeStatsHTML(d.fileTypeName || '—')}</span></td>` +
+            `<td>${escapeStatsHTML(d.hospitalName)}</td>` +
+            `<td>${escapeStatsHTML(d.description || '—')}</td>` +
+            `<td><span class="file-badge ${ext === 'pdf' ? 'pdf' : 'img'}">${escapeStatsHTML(ext.toUpperCase())}</span></td>` +
+            '<td>' +
+            `<button class="action-btn" title="Ver documento" onclick="window.open(withAccessToken('http://localhost:8080/file/${d.id}/content'), '_blank')">` +
+            '<svg viewBox="0 0 24 24" fill="none" stroke="currentColor" stroke-width="2">' +
+            '<path d="M1 12s4-8 11-8 11 8 11 8-4 8-11 8-11-8-11-8z" /><circle cx="12" cy="12" r="3" /></svg>' +
+            '</button>' +
+            '</td>' +
+            '</tr>';
+    }).join('');
 }
 
 // =============================================
@@ -91,10 +139,31 @@ function setupTableInteractions() {
 // INICIALIZAÇÃO
 // =============================================
 
-document.addEventListener('DOMContentLoaded', function () {
+document.addEventListener('DOMContentLoaded', async function () {
+    const patientId = currentPatientId();
+
+    // Uma chamada só para montar o painel; sem ela ficam os valores de exemplo
+    let summary = null;
+    try {
+        summary = await getPatientSummary(patientId);
+    } catch (e) {
+        console.warn('[GestCare] Falha ao carregar o resumo do paciente:', e);
+    }
+
     try {
-        updateGreeting();
-        new StatsAnimator();
+        if (summary) {
+            updateGreeting(summary.name);
+            renderLatestDocs(summary.latestFiles);
+            new StatsAnimator({
+                hospitais: summary.hospitals.length,
+                documentos: summary.totalFiles,
+                exames: countByType(summary, 'exame'),
+                receitas: countByType(summary, 'receita')
+            });
+        } else {
+            updateGreeting();
+            new StatsAnimator();
+        }
         setupTableInteractions();
     } catch (e) {
         console.error('[GestCare] Erro na inicialização stats:', e);
@@ -0,0 +1,341 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carga mista contra uma instância do GestCare já rodando: uploads lentos (clientes com pouca
+ * banda, que prendem a thread da requisição enquanto o corpo chega) e leituras (listas de
+ * documentos e de hospitais, busca de hospitais por nome e resumo do paciente). Rode uma vez
+ * com spring.threads.virtual.enabled=false e outra com true e compare; o compare.sh faz as
+ * duas rodadas.
+ *
+ * Uso (Java 21, sem dependências):
+ *   java benchmark/ThreadModeBenchmark.java --login=email --password=senha --hospital-id=1 [opções]
+ *
+ * Opções (padrão):
+ *   --base-url=http://localhost:8080  --file-type-id=1  --clients=200  --duration=60
+ *   --warmup=10  --upload-ratio=0.2  --upload-kb=256  --upload-kbps=64 (0 = sem limite)
+ *   --hospital-search=a  --label=run  --out=benchmark-results.csv
+ *
+ * Os documentos enviados são apagados no fim. Use um banco de teste.
+ */
+public class ThreadModeBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern PATIENT_ID = Pattern.compile("\"patientId\"\\s*:\\s*(\\d+)");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final Map<String, String> options;
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Long> uploadedIds = new ConcurrentLinkedQueue<>();
+
+    // Só entram no relatório as chamadas que começaram depois do aquecimento
+    private long recordFrom;
+
+    private String baseUrl;
+    private String token;
+    private long patientId;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new ThreadModeBenchmark(options).run();
+    }
+
+    private ThreadModeBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    private void run() throws Exception {
+        baseUrl = option("base-url", "http://localhost:8080");
+        int clients = Integer.parseInt(option("clients", "200"));
+        int duration = Integer.parseInt(option("duration", "60"));
+        int warmup = Integer.parseInt(option("warmup", "10"));
+        double uploadRatio = Double.parseDouble(option("upload-ratio", "0.2"));
+
+        login(required("login"), required("password"));
+        System.out.printf("Patient %d, %d clients, %ds (+%ds warm-up), %.0f%% uploads%n",
+                patientId, clients, duration, warmup, uploadRatio * 100);
+
+        long start = System.nanoTime();
+        recordFrom = start + Duration.ofSeconds(warmup).toNanos();
+        long deadline = recordFrom + Duration.ofSeconds(duration).toNanos();
+
+        // Os clientes também são threads virtuais: o gargalo medido é o servidor, não o benchmark
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        if (random.nextDouble() < uploadRatio) {
+                            timed("upload", this::upload);
+                        } else {
+                            switch (random.nextInt(4)) {
+                                case 0 -> timed("list-files", () -> get("/file/patient/" + patientId + "?size=20"));
+                                case 1 -> timed("summary", () -> get("/patient/" + patientId + "/summary"));
+                                case 2 -> timed("list-hospitals", () -> get("/hospital/patient/" + patientId + "?size=20"));
+                                default -> timed("search-hospitals", () -> get("/hospital/search?name="
+                                        + URLEncoder.encode(option("hospital-search", "a"), StandardCharsets.UTF_8) + "&patientId=" + patientId));
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        report(duration);
+        cleanup();
+    }
+
+    // ======== OPERAÇÕES ========
+
+    private void login(String login, String password) throws IOException, InterruptedException {
+        String body = "{\"login\":" + json(login) + ",\"password\":" + json(password) + "}";
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed: HTTP " + response.statusCode());
+        }
+        token = match(TOKEN, response.body());
+        patientId = Long.parseLong(match(PATIENT_ID, response.body()));
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpResponse<Void> response = http.send(request(path).GET().build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    private int upload() throws IOException, InterruptedException {
+        String boundary = "----gestcare-benchmark-" + System.nanoTime();
+        int sizeKb = Integer.parseInt(option("upload-kb", "256"));
+        int kbps = Integer.parseInt(option("upload-kbps", "64"));
+
+        String fields = field(boundary, "hospitalId", required("hospital-id"))
+                + field(boundary, "fileTypeId", option("file-type-id", "1"))
+                + field(boundary, "fileDate", LocalDate.now().toString())
+                + field(boundary, "description", "benchmark")
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"benchmark-" + System.nanoTime() + ".bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        String end = "\r\n--" + boundary + "--\r\n";
+
+        // Conteúdo aleatório: cada upload é um conteúdo novo (sem deduplicação pelo hash)
+        byte[] content = new byte[sizeKb * 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        HttpResponse<String> response = http.send(request("/file/upload")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new SequenceInputStream(Collections.enumeration(List.of(
+                        new ByteArrayInputStream(fields.getBytes(StandardCharsets.UTF_8)),
+                        new ThrottledInputStream(new ByteArrayInputStream(content), kbps),
+                        new ByteArrayInputStream(end.getBytes(StandardCharsets.UTF_8)))))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() == 200) {
+            Matcher id = ID.matcher(response.body());
+            if (id.find()) {
+                uploadedIds.add(Long.parseLong(id.group(1)));
+            }
+        }
+        return response.statusCode();
+    }
+
+    private void cleanup() {
+        System.out.println("Deleting " + uploadedIds.size() + " uploaded documents...");
+        for (Long id : uploadedIds) {
+            try {
+                http.send(request("/file/" + id).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Could not delete document " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // ======== MEDIÇÃO ========
+
+    private void timed(String operation, Call call) {
+        long started = System.nanoTime();
+        boolean ok;
+        try {
+            int status = call.run();
+            ok = status >= 200 && status < 300;
+        } catch (Exception e) {
+            ok = false;
+        }
+        if (started < recordFrom) {
+            return;
+        }
+        if (ok) {
+            latencies.computeIfAbsent(operation, key -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - started);
+        } else {
+            errors.computeIfAbsent(operation, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private void report(int duration) throws IOException {
+        String label = option("label", "run");
+        Path out = Path.of(option("out", "benchmark-results.csv"));
+        if (!Files.exists(out)) {
+            Files.writeString(out, "label,operation,requests,errors,per_second,p50_ms,p95_ms,p99_ms,max_ms\n");
+        }
+
+        System.out.printf("%n[%s]%n%-12s %9s %7s %9s %9s %9s %9s %9s%n",
+                label, "operation", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        List<String> operations = new ArrayList<>(latencies.keySet());
+        errors.keySet().stream().filter(op -> !operations.contains(op)).forEach(operations::add);
+        Collections.sort(operations);
+
+        for (String operation : operations) {
+            List<Long> sorted = new ArrayList<>(latencies.getOrDefault(operation, new ConcurrentLinkedQueue<>()));
+            Collections.sort(sorted);
+            long failed = errors.getOrDefault(operation, new AtomicLong()).get();
+            double perSecond = (double) sorted.size() / duration;
+            String line = String.format("%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f",
+                    label, operation, sorted.size(), failed, perSecond,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+            System.out.printf("%-12s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    operation, sorted.size(), failed, perSecond,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+            Files.writeString(out, line + "\n", StandardOpenOption.APPEND);
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+    }
+
+    // ======== AUXILIARES ========
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private static String field(String boundary, String name, String value) {
+        return "--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n";
+    }
+
+    private static String json(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private String option(String name, String fallback) {
+        return options.getOrDefault(name, fallback);
+    }
+
+    private String required(String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + "= is required");
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int run() throws Exception;
+    }
+
+    // Simula um cliente com pouca banda: entrega o corpo a no máximo kbps KB/s
+    private static final class ThrottledInputStream extends InputStream {
+
+        private static final int CHUNK = 8 * 1024;
+
+        private final InputStream in;
+        private final long nanosPerChunk;
+        private long next = System.nanoTime();
+
+        ThrottledInputStream(InputStream in, int kbps) {
+            this.in = in;
+            this.nanosPerChunk = kbps <= 0 ? 0 : 1_000_000_000L * CHUNK / (kbps * 1024L);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (nanosPerChunk > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(Duration.ofNanos(wait));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                next = Math.max(next, System.nanoTime()) + nanosPerChunk;
+            }
+            return in.read(buffer, offset, Math.min(length, CHUNK));
+        }
+    }
+}
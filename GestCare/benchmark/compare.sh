@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Sobe o GestCare duas vezes (threads de plataforma e threads virtuais) com a mesma carga
+# e junta os resultados em benchmark-results.csv. Argumentos extras vão para o benchmark.
+#
+#   mvn -B package -DskipTests
+#   benchmark/compare.sh --login=email --password=senha --hospital-id=1 --clients=400
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=${JAR:-$(ls target/GestCare-*.jar | grep -v plain | head -n 1)}
+PORT=${PORT:-8080}
+TOMCAT_THREADS=${TOMCAT_THREADS:-200}
+
+for mode in false true; do
+    label=$([ "$mode" = true ] && echo virtual || echo platform)
+    echo "== $label threads =="
+
+    java -jar "$JAR" \
+        --server.port="$PORT" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        --spring.threads.virtual.enabled="$mode" \
+        > "benchmark-$label.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        kill -0 $app 2>/dev/null || { echo "GestCare did not start; see benchmark-$label.log"; exit 1; }
+        sleep 1
+    done
+
+    java benchmark/ThreadModeBenchmark.java --base-url="http://localhost:$PORT" --label="$label" "$@"
+
+    kill $app
+    wait $app 2>/dev/null || true
+    trap - EXIT
+done
+
+echo
+echo "Results: benchmark-results.csv"
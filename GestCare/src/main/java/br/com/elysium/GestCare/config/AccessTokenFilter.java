@@ -0,0 +1,98 @@
+package br.com.elysium.GestCare.config;
+
+import br.com.elysium.GestCare.services.AccessTokenServices;
+import br.com.elysium.GestCare.services.AccessTokenServices.AccessToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Exige um token de acesso (Authorization: Bearer ...) em toda requisição, exceto login,
+ * cadastro de paciente, preflight de CORS, /actuator e /error. O paciente do token vai no
+ * atributo PATIENT_ID da requisição e os controllers limitam as consultas a ele.
+ *
+ * Só no download e na miniatura de um documento (GET /file/{id}/content e /preview) o token
+ * também pode vir em ?access_token=, para links abertos direto pelo navegador (window.open,
+ * <img>), que não mandam cabeçalhos. Nas demais rotas o parâmetro é ignorado: token na URL
+ * acaba em logs de acesso e no histórico do navegador.
+ *
+ * Com gestcare.auth.admin-key preenchida, o cabeçalho X-Admin-Key com esse valor libera
+ * tudo sem paciente (exportação, importação, listagens gerais).
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+    public static final String PATIENT_ID = "gestcare.patientId";
+    public static final String ACCESS_TOKEN = "gestcare.accessToken";
+
+    private static final String ADMIN_KEY_HEADER = "X-Admin-Key";
+    private static final String BEARER = "Bearer ";
+    private static final Pattern QUERY_TOKEN_PATHS = Pattern.compile("/file/\\d+/(content|preview)");
+
+    private final AccessTokenServices accessTokenServices;
+    private final byte[] adminKey;
+
+    public AccessTokenFilter(AccessTokenServices accessTokenServices, String adminKey) {
+        this.accessTokenServices = accessTokenServices;
+        this.adminKey = adminKey.isBlank() ? null : adminKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (isPublic(request) || isAdmin(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String token = token(request);
+        Optional<AccessToken> access = token != null ? accessTokenServices.verify(token) : Optional.empty();
+        if (access.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing, invalid or expired access token!");
+            return;
+        }
+
+        request.setAttribute(PATIENT_ID, access.get().patientId());
+        request.setAttribute(ACCESS_TOKEN, access.get());
+        chain.doFilter(request, response);
+    }
+
+    private boolean isPublic(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = path(request);
+        return "OPTIONS".equals(method)
+                || path.equals("/error")
+                || path.startsWith("/actuator")
+                || ("POST".equals(method) && (path.equals("/auth/login") || path.equals("/patient")));
+    }
+
+    private boolean isAdmin(HttpServletRequest request) {
+        String key = request.getHeader(ADMIN_KEY_HEADER);
+        return adminKey != null && key != null
+                && MessageDigest.isEqual(adminKey, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String token(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return header.substring(BEARER.length()).trim();
+        }
+        return "GET".equals(request.getMethod()) && QUERY_TOKEN_PATHS.matcher(path(request)).matches()
+                ? request.getParameter("access_token")
+                : null;
+    }
+
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
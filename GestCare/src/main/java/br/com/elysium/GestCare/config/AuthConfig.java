@@ -0,0 +1,26 @@
+package br.com.elysium.GestCare.config;
+
+import br.com.elysium.GestCare.services.AccessTokenServices;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Autenticação por token (AccessTokenFilter); gestcare.auth.enabled=false deixa a API aberta como antes
+@Configuration
+@ConditionalOnProperty(name = "gestcare.auth.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthConfig {
+
+    // Antes do ReadYourWritesFilter, que usa o paciente do token para identificar o cliente
+    @Bean
+    public FilterRegistrationBean<AccessTokenFilter> accessTokenFilterRegistration(
+            AccessTokenServices accessTokenServices,
+            @Value("${gestcare.auth.admin-key:}") String adminKey) {
+        FilterRegistrationBean<AccessTokenFilter> registration =
+                new FilterRegistrationBean<>(new AccessTokenFilter(accessTokenServices, adminKey));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
@@ -21,7 +21,9 @@ public class CorsConfig {
                                 "http://127.0.0.1:3000"
                         )
                         .allowedMethods("*")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        // Lidos pelo front-end nos downloads parciais e GETs condicionais
+                        .exposedHeaders("ETag", "Content-Range", "Accept-Ranges", "Content-Disposition");
             }
         };
     }
@@ -0,0 +1,105 @@
+package br.com.elysium.GestCare.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache de segundo nível do Hibernate (local, em memória, via Caffeine/JCache) para
+ * Patient, Hospital e FileType, e cache da consulta de hospitais por paciente.
+ *
+ * Desligado por padrão: com gestcare.cache.l2.enabled=false as anotações @Cache das
+ * entidades são ignoradas e toda leitura vai ao banco, o que permite comparar as
+ * latências (métrica http.server.requests) com e sem cache.
+ *
+ * As escritas feitas pelos services (@Transactional) passam pela sessão do Hibernate e
+ * atualizam/invalidam as regiões (READ_WRITE) e o carimbo da tabela usado pelo cache de consultas.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // Mesmos nomes usados em @Cache nas entidades e na consulta do HospitalRepository
+    private static final String PATIENT_REGION = "patient";
+    private static final String HOSPITAL_REGION = "hospital";
+    private static final String FILE_TYPE_REGION = "file-type";
+    private static final String HOSPITALS_BY_PATIENT_REGION = "hospitals-by-patient";
+
+    // Regiões internas do cache de consultas do Hibernate
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "gestcare.cache.l2.enabled", havingValue = "true")
+    public CacheManager hibernateCacheManager(
+            MeterRegistry meterRegistry,
+            @Value("${gestcare.cache.l2.max-entries:10000}") long maxEntries,
+            @Value("${gestcare.cache.l2.ttl-seconds:600}") long ttlSeconds) {
+
+        // Um CacheManager só deste contexto: o padrão do provider é global na JVM e um segundo
+        // contexto (testes, restart do devtools) falharia ao criar as mesmas regiões de novo
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("gestcare:hibernate-l2:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (String region : new String[]{PATIENT_REGION, HOSPITAL_REGION, FILE_TYPE_REGION,
+                HOSPITALS_BY_PATIENT_REGION, QUERY_RESULTS_REGION}) {
+            monitor(meterRegistry, cacheManager.createCache(region, bounded(maxEntries, ttlSeconds)));
+        }
+
+        // Os carimbos de atualização das tabelas não podem expirar antes dos resultados em cache
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        monitor(meterRegistry, cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps));
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheProperties(ObjectProvider<CacheManager> hibernateCacheManager) {
+        CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+        return properties -> {
+            if (cacheManager == null) {
+                // Com o hibernate-jcache no classpath o Hibernate ligaria o cache sozinho
+                properties.put("hibernate.cache.use_second_level_cache", false);
+                properties.put("hibernate.cache.use_query_cache", false);
+                return;
+            }
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        };
+    }
+
+    private CaffeineConfiguration<Object, Object> bounded(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(ttlSeconds).toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+    // cache.gets{result=hit|miss}, cache.puts, cache.evictions, cache.removals por região
+    private void monitor(MeterRegistry meterRegistry, Cache<?, ?> cache) {
+        JCacheMetrics.monitor(meterRegistry, cache, Tags.of("layer", "hibernate-l2"));
+    }
+}
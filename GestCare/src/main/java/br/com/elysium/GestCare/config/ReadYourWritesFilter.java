@@ -0,0 +1,69 @@
+package br.com.elysium.GestCare.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes com réplicas: depois de uma escrita (POST/PUT/PATCH/DELETE), as
+ * leituras do mesmo cliente vão para o primário durante a janela configurada, para não
+ * ler uma réplica que ainda não recebeu a alteração.
+ *
+ * O cliente é o paciente do token de acesso (ver AccessTokenFilter) ou, sem token, o
+ * endereço de origem; atrás de um proxy, vários clientes sem token podem cair na mesma
+ * chave, o que só manda mais leituras para o primário.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final long windowMillis;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        Object patientId = request.getAttribute(AccessTokenFilter.PATIENT_ID);
+        String client = patientId != null ? "patient:" + patientId : request.getRemoteAddr();
+        boolean write = isWrite(request.getMethod());
+        if (write) {
+            lastWrite.put(client, System.currentTimeMillis());
+        }
+
+        Long last = lastWrite.get(client);
+        ReplicaRoutingDataSource.forcePrimary(last != null && System.currentTimeMillis() - last < windowMillis);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.forcePrimary(false);
+            // A janela conta a partir do fim da escrita (depois do commit)
+            if (write) {
+                lastWrite.put(client, System.currentTimeMillis());
+            }
+        }
+    }
+
+    // Remove os clientes cuja janela já passou
+    @Scheduled(fixedDelay = 60000)
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        lastWrite.values().removeIf(time -> time < cutoff);
+    }
+
+    private boolean isWrite(String method) {
+        return switch (method) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+}
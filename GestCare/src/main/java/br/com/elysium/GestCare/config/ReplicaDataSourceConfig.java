@@ -0,0 +1,86 @@
+package br.com.elysium.GestCare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de leitura: só entra em ação com gestcare.datasource.replica-urls preenchido.
+ * Sem ele a aplicação usa o datasource único do spring.datasource, como antes.
+ *
+ * Para testar localmente com duas instâncias (ex.: MySQL em 3306 como primário e em 3307
+ * como réplica), basta apontar replica-urls para a segunda e acompanhar
+ * /actuator/metrics/gestcare.datasource.connections por target. O roteamento em si é
+ * exercitado por ReplicaRoutingDataSourceTests com dois bancos H2 em memória.
+ */
+@Configuration
+@ConditionalOnExpression("'${gestcare.datasource.replica-urls:}' != ''")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${gestcare.datasource.replica-urls}") String replicaUrls,
+            @Value("${gestcare.datasource.replica-username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${gestcare.datasource.replica-password:${spring.datasource.password:}}") String replicaPassword) {
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            replica.setPoolName(name);
+            replica.setReadOnly(true);
+            // Réplica fora do ar na subida não impede a aplicação de iniciar
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, replica));
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+    }
+
+    // O DataSource usado pelo JPA/JdbcTemplate: a escolha primário/réplica só acontece no primeiro SQL
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${gestcare.datasource.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(windowMillis);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistration(ReadYourWritesFilter filter) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.elysium.GestCare.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Envia as transações somente leitura (@Transactional(readOnly = true)) para as réplicas,
+ * em rodízio entre as que estão saudáveis, e todo o resto para o primário.
+ *
+ * Fica atrás de um LazyConnectionDataSourceProxy: a conexão só é pedida no primeiro
+ * comando SQL, quando a transação já está marcada como somente leitura. Se nenhuma
+ * réplica estiver disponível (ou a escolhida falhar ao conectar), a leitura vai para o primário.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // Janela de read-your-writes do cliente atual (ver ReadYourWritesFilter)
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private Logger logger = Logger.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.primaryConnections = Counter.builder("gestcare.datasource.connections")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        for (Replica replica : this.replicas) {
+            replica.connections = Counter.builder("gestcare.datasource.connections")
+                    .tag("target", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("gestcare.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static void forcePrimary(boolean force) {
+        if (force) {
+            FORCE_PRIMARY.set(Boolean.TRUE);
+        } else {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || FORCE_PRIMARY.get() != null) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    // Réplica fora do ar sai do rodízio e volta quando responder de novo
+    @Scheduled(fixedDelayString = "${gestcare.datasource.replica-check-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            String reason = null;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(2);
+            } catch (SQLException e) {
+                valid = false;
+                reason = e.getMessage();
+            }
+            if (valid && !replica.healthy) {
+                replica.healthy = true;
+                logger.info("Replica " + replica.name + " is back in rotation!");
+            } else if (!valid) {
+                markDown(replica, reason != null ? reason : "connection is not valid");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            logger.warning("Replica " + replica.name + " removed from rotation: " + reason);
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private Counter connections;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
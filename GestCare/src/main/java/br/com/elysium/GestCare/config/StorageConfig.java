@@ -0,0 +1,31 @@
+package br.com.elysium.GestCare.config;
+
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import br.com.elysium.GestCare.storage.S3StorageBackend;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class StorageConfig {
+
+    // gestcare.storage.type: "local" (padrão) ou "s3"
+    @Bean
+    public StorageBackend storageBackend(
+            @Value("${gestcare.storage.type:local}") String type,
+            @Value("${gestcare.storage.local.root:${user.dir}/uploads}") String localRoot,
+            @Value("${gestcare.storage.s3.endpoint:}") String endpoint,
+            @Value("${gestcare.storage.s3.bucket:}") String bucket,
+            @Value("${gestcare.storage.s3.region:us-east-1}") String region,
+            @Value("${gestcare.storage.s3.access-key:}") String accessKey,
+            @Value("${gestcare.storage.s3.secret-key:}") String secretKey) {
+
+        if ("s3".equalsIgnoreCase(type)) {
+            return new S3StorageBackend(endpoint, bucket, region, accessKey, secretKey);
+        }
+        return new LocalStorageBackend(Path.of(localRoot));
+    }
+}
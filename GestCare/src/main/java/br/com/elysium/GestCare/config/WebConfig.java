@@ -1,21 +0,0 @@
-package br.com.elysium.GestCare.config;
-
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.nio.file.Paths;
-
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Pega o caminho absoluto da pasta uploads na raiz do projeto
-        String uploadPath = Paths.get(System.getProperty("user.dir"), "uploads").toAbsolutePath().toString();
-
-        // Define que qualquer URL que comece com /files/ buscará os arquivos na pasta uploads
-        registry.addResourceHandler("/files/**")
-                .addResourceLocations("file:" + uploadPath + "/");
-    }
-}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package br.com.elysium.GestCare.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads dos pools próprios de trabalho de I/O (upload em lote, importação, purge,
+ * reconciliador). Com spring.threads.virtual.enabled=true elas são virtuais, como as das
+ * requisições (Tomcat), do @Scheduled e do @Async; o tamanho de cada pool continua limitando
+ * a concorrência, só que uma thread parada em JDBC ou disco deixa de ocupar uma thread do
+ * sistema.
+ *
+ * Pools de trabalho de CPU (BCrypt, extração de texto, miniaturas) ficam em threads de
+ * plataforma: ali threads virtuais não ganham nada e o limite é o número de núcleos.
+ */
+@Component
+public class WorkerThreads {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtual;
+
+    public ThreadFactory ioBound(String name) {
+        return ioBound(name, Thread.NORM_PRIORITY);
+    }
+
+    // A prioridade só vale para threads de plataforma
+    public ThreadFactory ioBound(String name, int priority) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name + "-", 1).factory();
+        }
+        return Thread.ofPlatform().name(name + "-", 1).daemon(true).priority(priority).factory();
+    }
+}
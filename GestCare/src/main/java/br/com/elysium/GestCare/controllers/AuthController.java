@@ -0,0 +1,41 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.config.AccessTokenFilter;
+import br.com.elysium.GestCare.dto.LoginRequest;
+import br.com.elysium.GestCare.dto.LoginResponse;
+import br.com.elysium.GestCare.services.AccessTokenServices.AccessToken;
+import br.com.elysium.GestCare.services.AuthServices;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+
+    @Autowired
+    private AuthServices service;
+
+    // 401 para login ou senha inválidos; 503 quando o pool de hash está saturado
+    @PostMapping(value = "/login",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public LoginResponse login(@Valid @RequestBody LoginRequest request) {
+        return service.login(request.login(), request.password());
+    }
+
+    // Revoga o token usado na própria requisição
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletRequest request) {
+        if (request.getAttribute(AccessTokenFilter.ACCESS_TOKEN) instanceof AccessToken token) {
+            service.logout(token);
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.dto.CollectionVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// ETags fracos a partir do @Version das entidades (sem serializar o corpo para calcular um hash).
+// O Hibernate incrementa a versão a cada alteração, então ela serve tanto para o ETag quanto
+// para recusar uma edição concorrente que sobrescreveria outra (controle otimista, If-Match)
+final class ETags {
+
+    // W/"<id>-<version>" (o W/ é opcional: alguns proxies o removem)
+    private static final Pattern ITEM_TAG = Pattern.compile("(?:W/)?\"(\\d+)-(\\d+)\"");
+
+    private ETags() {
+    }
+
+    static String of(long id, Long version) {
+        return "W/\"" + id + "-" + version + "\"";
+    }
+
+    static String of(CollectionVersion collection) {
+        return "W/\"" + collection.count() + "-" + collection.maxId() + "-" + collection.versionSum() + "\"";
+    }
+
+    // Versão esperada num If-Match com o ETag do item (W/"id-version"); null se ausente ou "*".
+    // ETag malformado ou de outro registro não pode valer como versão: 412, como uma versão antiga
+    static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher tag = ITEM_TAG.matcher(ifMatch.trim());
+        if (!tag.matches() || !tag.group(1).equals(String.valueOf(id))) {
+            throw mismatch();
+        }
+        try {
+            return Long.valueOf(tag.group(2));
+        } catch (NumberFormatException e) {
+            throw mismatch();
+        }
+    }
+
+    private static ResponseStatusException mismatch() {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "If-Match does not match this record; reload and try again!");
+    }
+}
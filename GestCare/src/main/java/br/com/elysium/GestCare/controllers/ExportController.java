@@ -0,0 +1,60 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.services.BulkExportServices;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Exportação completa em NDJSON (uma linha JSON por registro); ?gzip=true devolve .ndjson.gz.
+// Cruza pacientes: só com a chave de administração (X-Admin-Key) quando a autenticação está ligada
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    @Autowired
+    private BulkExportServices bulkExportService;
+
+    @GetMapping("/patients")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        Scopes.requireAdmin(request);
+        return download("patients", gzip, out -> bulkExportService.writePatients(out, gzip));
+    }
+
+    @GetMapping("/hospitals")
+    public ResponseEntity<StreamingResponseBody> exportHospitals(
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        Scopes.requireAdmin(request);
+        return download("hospitals", gzip, out -> bulkExportService.writeHospitals(out, gzip));
+    }
+
+    @GetMapping("/files")
+    public ResponseEntity<StreamingResponseBody> exportFiles(
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        Scopes.requireAdmin(request);
+        return download("files", gzip, out -> bulkExportService.writeFiles(out, gzip));
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String name, boolean gzip, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + (gzip ? ".ndjson.gz" : ".ndjson"))
+                        .build().toString())
+                .body(body);
+    }
+}
@@ -1,12 +1,39 @@
 package br.com.elysium.GestCare.controllers;
+import br.com.elysium.GestCare.dto.BatchUploadItem;
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.DocumentSearchHit;
+import br.com.elysium.GestCare.dto.FileListItem;
+import br.com.elysium.GestCare.dto.UploadSession;
+import br.com.elysium.GestCare.dto.UploadSessionRequest;
 import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.services.ChunkedUploadServices;
+import br.com.elysium.GestCare.services.DocumentSearchServices;
+import br.com.elysium.GestCare.services.FileContentServices;
 import br.com.elysium.GestCare.services.FileServices;
+import br.com.elysium.GestCare.services.HospitalServices;
+import br.com.elysium.GestCare.services.PatientExportServices;
+import br.com.elysium.GestCare.services.PreviewServices;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 @RestController
@@ -16,21 +43,191 @@ public class FileController {
     @Autowired
     private FileServices fileService;
 
+    @Autowired
+    private ChunkedUploadServices chunkedUploadService;
+
+    @Autowired
+    private FileContentServices fileContentService;
+
+    @Autowired
+    private PreviewServices previewService;
+
+    @Autowired
+    private PatientExportServices patientExportService;
+
+    @Autowired
+    private DocumentSearchServices documentSearchService;
+
+    @Autowired
+    private HospitalServices hospitalService;
+
+    // Mais recentes primeiro, em páginas; "next" da resposta vai em ?cursor= para a página seguinte
     @GetMapping("/patient/{id}")
-    public List<File> getFilesByPatient(@PathVariable Long id) {
-        return fileService.getFilesByPatient(id);
+    public CursorPage<FileListItem> getFilesByPatient(@PathVariable Long id,
+                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                      @RequestParam(value = "size", defaultValue = "20") int size,
+                                                      HttpServletRequest request) {
+        Scopes.requirePatient(request, id);
+        return fileService.getFilesByPatient(id, cursor, size);
     }
 
+    // Prontuário completo do paciente num ZIP (com manifest.csv), gerado em streaming
+    @GetMapping("/patient/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportPatientFiles(
+            @PathVariable Long id,
+            @RequestParam(value = "hospitalId", required = false) Long hospitalId,
+            @RequestParam(value = "fileTypeId", required = false) Long fileTypeId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request
+    ) {
+        Scopes.requirePatient(request, id);
+        List<File> files = patientExportService.selectFiles(id, hospitalId, fileTypeId, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("prontuario-paciente-" + id + ".zip")
+                        .build().toString())
+                .body(out -> patientExportService.writeZip(files, out));
+    }
+
+    // Busca textual (título, tipo, descrição e texto dos PDFs) nos documentos do paciente
+    @GetMapping(value = "/patient/{id}/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<DocumentSearchHit> searchPatientFiles(@PathVariable Long id,
+                                                      @RequestParam("q") String query,
+                                                      @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                      HttpServletRequest request)
+            throws IOException {
+        Scopes.requirePatient(request, id);
+        return documentSearchService.search(id, query, limit);
+    }
+
+    // Se o cliente informar o contentHash de um conteúdo que ele já enviou antes,
+    // o arquivo pode ser omitido e nenhum byte é gravado em disco
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public File uploadFile(
-            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "contentHash", required = false) String contentHash,
+            @RequestParam(value = "fileName", required = false) String fileName,
             @RequestParam("hospitalId") Long hospitalId,
             @RequestParam("fileTypeId") Long fileTypeId,
             @RequestParam("fileDate") String fileDate,
-            @RequestParam("description") String description
+            @RequestParam("description") String description,
+            HttpServletRequest request
     ) {
+        Scopes.requirePatient(request, hospitalService.ownerOf(hospitalId));
+        Long caller = Scopes.patientOf(request);
+        if (contentHash != null && fileService.contentExists(contentHash, caller)) {
+            String name = file != null ? file.getOriginalFilename() : fileName;
+            if (name == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O nome do arquivo precisa ser informado!");
+            }
+            return fileService.saveKnownFile(contentHash, name, hospitalId, fileTypeId, fileDate, description, caller);
+        }
+        if (file == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O arquivo precisa ser enviado!");
+        }
         return fileService.saveFile(file, hospitalId, fileTypeId, fileDate, description);
     }
 
-}
+    // Vários documentos (ex.: páginas digitalizadas de uma consulta) numa única requisição.
+    // "descriptions" é opcional e segue a ordem de "files"; sem ela vale "description" para todos
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public List<BatchUploadItem> uploadBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("hospitalId") Long hospitalId,
+            @RequestParam("fileTypeId") Long fileTypeId,
+            @RequestParam("fileDate") String fileDate,
+            @RequestParam(value = "description", required = false) String description,
+            HttpServletRequest request
+    ) {
+        Scopes.requirePatient(request, hospitalService.ownerOf(hospitalId));
+        // Lido direto do request: o binding de List<String> quebraria uma única descrição nas vírgulas
+        String[] descriptions = request.getParameterValues("descriptions");
+        return fileService.saveBatch(files, descriptions != null ? List.of(descriptions) : null,
+                hospitalId, fileTypeId, fileDate, description);
+    }
 
+    // Permite ao cliente saber se ele já enviou um conteúdo antes de enviá-lo de novo
+    @RequestMapping(value = "/content/{contentHash}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> contentExists(@PathVariable String contentHash, HttpServletRequest request) {
+        return fileService.contentExists(contentHash, Scopes.patientOf(request))
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // Download do documento: Range (inclusive vários intervalos), ETag e 304 em If-None-Match
+    @GetMapping("/{id}/content")
+    public void content(@PathVariable Long id,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        fileContentService.serve(id, Scopes.patientOf(request), request, response);
+    }
+
+    // Miniatura (JPEG pequeno) gerada em segundo plano; 404 enquanto não estiver pronta
+    @GetMapping("/{id}/preview")
+    public ResponseEntity<InputStreamResource> preview(@PathVariable Long id,
+                                                       HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                .body(new InputStreamResource(previewService.openPreview(id, Scopes.patientOf(request))));
+    }
+
+    @DeleteMapping(value = "/{id}")
+    public ResponseEntity<?> delete(@PathVariable("id") Long id, HttpServletRequest request) {
+        fileService.deleteFile(id, Scopes.patientOf(request));
+        return ResponseEntity.noContent().build();
+    }
+
+    // Upload em partes para documentos grandes (exames em PDF, exportações DICOM)
+    @PostMapping(
+            value = "/upload/sessions",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public UploadSession initUpload(@Valid @RequestBody UploadSessionRequest sessionRequest,
+                                    HttpServletRequest request) {
+        return chunkedUploadService.init(sessionRequest.fileName(), sessionRequest.totalSize(),
+                Scopes.patientOf(request));
+    }
+
+    // Consultado pelo cliente após uma queda de conexão para saber de onde retomar
+    @GetMapping(value = "/upload/sessions/{uploadId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public UploadSession uploadStatus(@PathVariable String uploadId, HttpServletRequest request) {
+        return chunkedUploadService.status(uploadId, Scopes.patientOf(request));
+    }
+
+    // O corpo é lido direto do socket e gravado no disco, sem passar pelo multipart
+    @PutMapping(
+            value = "/upload/sessions/{uploadId}",
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public UploadSession appendChunk(@PathVariable String uploadId,
+                                     @RequestParam("offset") long offset,
+                                     HttpServletRequest request) throws IOException {
+        return chunkedUploadService.append(uploadId, offset, request.getInputStream(), Scopes.patientOf(request));
+    }
+
+    @PostMapping(value = "/upload/sessions/{uploadId}/complete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public File completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam("hospitalId") Long hospitalId,
+            @RequestParam("fileTypeId") Long fileTypeId,
+            @RequestParam("fileDate") String fileDate,
+            @RequestParam("description") String description,
+            HttpServletRequest request
+    ) {
+        Scopes.requirePatient(request, hospitalService.ownerOf(hospitalId));
+        return chunkedUploadService.complete(uploadId, hospitalId, fileTypeId, fileDate, description,
+                Scopes.patientOf(request));
+    }
+
+    @DeleteMapping(value = "/upload/sessions/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId, HttpServletRequest request) {
+        chunkedUploadService.abort(uploadId, Scopes.patientOf(request));
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -1,14 +1,21 @@
 package br.com.elysium.GestCare.controllers;
 
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.HospitalListItem;
 import br.com.elysium.GestCare.model.Hospital;
 import br.com.elysium.GestCare.services.HospitalServices;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/hospital")
@@ -18,34 +25,64 @@ public class HospitalController {
     private HospitalServices service;
 
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Hospital findById(@PathVariable("id") Long id) {
-        return service.findById(id);
+    public ResponseEntity<Hospital> findById(@PathVariable("id") Long id, WebRequest request,
+                                             HttpServletRequest servletRequest) {
+        Long caller = Scopes.patientOf(servletRequest);
+        if (request.checkNotModified(ETags.of(id, service.versionOf(id, caller)))) {
+            return null;
+        }
+        Hospital hospital = service.findById(id, caller);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ETags.of(hospital.getId(), hospital.getVersion()))
+                .body(hospital);
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Hospital> findAll() {
-        return service.findAll();
+    public CursorPage<HospitalListItem> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "size", defaultValue = "20") int size,
+                                                HttpServletRequest request) {
+        Scopes.requireAdmin(request);
+        return service.findAll(cursor, size);
     }
 
     @GetMapping("/search")
-    public List<Hospital> search(
+    public List<HospitalListItem> search(
             @RequestParam String name,
-            @RequestParam Long patientId) {
+            @RequestParam Long patientId,
+            HttpServletRequest request) {
+        Scopes.requirePatient(request, patientId);
         return service.findByHospitalName(name, patientId);
     }
 
     // Encontra todos os hospitais de um paciente em especifico
     @GetMapping(value = "/patient/{patientId}",
             produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Hospital> findByPatient(@PathVariable Long patientId) {
-        return service.findByPatientId(patientId);
+    // O ETag vale para a coleção inteira (qualquer página): muda com inclusão, remoção ou alteração
+    public ResponseEntity<CursorPage<HospitalListItem>> findByPatient(@PathVariable Long patientId,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                                      @RequestParam(value = "size", defaultValue = "20") int size,
+                                                                      WebRequest request,
+                                                                      HttpServletRequest servletRequest) {
+        Scopes.requirePatient(servletRequest, patientId);
+        String etag = ETags.of(service.collectionVersionOf(patientId));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(service.findByPatientId(patientId, cursor, size));
     }
 
     @PostMapping(
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public Hospital create(@RequestBody Hospital hospital) {
+    public Hospital create(@RequestBody Hospital hospital, HttpServletRequest request) {
+        if (hospital.getPatient() != null) {
+            Scopes.requirePatient(request, hospital.getPatient().getId());
+        }
         return service.create(hospital);
     }
 
@@ -54,14 +91,32 @@ public class HospitalController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public Hospital update(@PathVariable Long id,
-                           @Valid @RequestBody Hospital hospital) {
-        return service.update(id, hospital);
+    public ResponseEntity<Hospital> update(@PathVariable Long id,
+                                           @Valid @RequestBody Hospital hospital,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           HttpServletRequest request) {
+        Hospital saved = service.update(id, hospital, ETags.expectedVersion(ifMatch, id), Scopes.patientOf(request));
+        return ResponseEntity.ok()
+                .eTag(ETags.of(saved.getId(), saved.getVersion()))
+                .body(saved);
+    }
+
+    // JSON Merge Patch (RFC 7386): só os campos enviados mudam, null apaga o valor.
+    // Exige a versão (If-Match ou "version" no corpo) e responde só com o novo ETag
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<Void> patch(@PathVariable("id") Long id,
+                                      @RequestBody Map<String, Object> patch,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      HttpServletRequest request) {
+        long version = service.patch(id, patch, ETags.expectedVersion(ifMatch, id), Scopes.patientOf(request));
+        return ResponseEntity.noContent()
+                .eTag(ETags.of(id, version))
+                .build();
     }
 
     @DeleteMapping(value = "/{id}")
-    public ResponseEntity<?> delete(@PathVariable("id") Long id) {
-        service.delete(id);
+    public ResponseEntity<?> delete(@PathVariable("id") Long id, HttpServletRequest request) {
+        service.delete(id, Scopes.patientOf(request));
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
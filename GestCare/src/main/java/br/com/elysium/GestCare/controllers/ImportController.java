@@ -0,0 +1,41 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.dto.ImportReport;
+import br.com.elysium.GestCare.services.BulkImportServices;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+// Importação em lote: corpo em text/csv (com cabeçalho) ou application/x-ndjson, lido em streaming
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private BulkImportServices bulkImportService;
+
+    @PostMapping(value = "/patients", consumes = {CSV, NDJSON}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importPatients(HttpServletRequest request) throws IOException {
+        Scopes.requireAdmin(request);
+        return bulkImportService.importPatients(request.getInputStream(), isNdjson(request));
+    }
+
+    // Cada linha indica o paciente por patientId ou patientCpf
+    @PostMapping(value = "/hospitals", consumes = {CSV, NDJSON}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importHospitals(HttpServletRequest request) throws IOException {
+        Scopes.requireAdmin(request);
+        return bulkImportService.importHospitals(request.getInputStream(), isNdjson(request));
+    }
+
+    private boolean isNdjson(HttpServletRequest request) {
+        return MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(NDJSON));
+    }
+}
@@ -1,15 +1,24 @@
 package br.com.elysium.GestCare.controllers;
 
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.PatientSearchHit;
+import br.com.elysium.GestCare.dto.PatientSummary;
 import br.com.elysium.GestCare.model.Hospital;
 import br.com.elysium.GestCare.model.Patient;
 import br.com.elysium.GestCare.services.PatientServices;
+import br.com.elysium.GestCare.services.PatientSummaryServices;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/patient")    //http://localhost:8080/patient
@@ -18,6 +27,9 @@ public class PatientController {
     // Aqui que se faz a injeção de dependências, só possivel por conta do @Service definido em PatientService
     @Autowired
     private PatientServices service;
+
+    @Autowired
+    private PatientSummaryServices summaryService;
     //Ou somente:
     //private PatientServices service = new PatientServices();
 
@@ -25,20 +37,56 @@ public class PatientController {
         //method = RequestMethod.GET, // Especificando que é um metodo GET//
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public Patient findById(@PathVariable("id") Long id){ // Encontrara o valor pelo id
-        return service.findById(id);
+    public ResponseEntity<Patient> findById(@PathVariable("id") Long id, WebRequest request,
+                                            HttpServletRequest servletRequest){ // Encontrara o valor pelo id
+        Scopes.requirePatient(servletRequest, id);
+        // 304 sem carregar o paciente quando o ETag enviado em If-None-Match ainda vale
+        if (request.checkNotModified(ETags.of(id, service.versionOf(id)))) {
+            return null;
+        }
+        Patient patient = service.findById(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ETags.of(patient.getId(), patient.getVersion()))
+                .body(patient);
     }
 
     @GetMapping(// Quando não há parametro o verbo HTTP cai como default: https://localhost:8080/patient
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public List<Patient> findAll(){
-        return service.findAll();
+    public CursorPage<Patient> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                       @RequestParam(value = "size", defaultValue = "20") int size,
+                                       HttpServletRequest request){
+        Scopes.requireAdmin(request);
+        return service.findAll(cursor, size);
+    }
+
+    // Painel do paciente numa chamada só: hospitais com contagem, contagem por tipo e os "latest" últimos documentos
+    @GetMapping(value = "/{id}/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PatientSummary summary(@PathVariable("id") Long id,
+                                  @RequestParam(value = "latest", defaultValue = "5") int latest,
+                                  HttpServletRequest request) {
+        Scopes.requirePatient(request, id);
+        return summaryService.summarize(id, latest);
     }
 
-    @GetMapping("/search")
-    public List<Patient> search(
-            @RequestParam String name) {
+    // Nome, sobrenome, CPF ou e-mail: sem acentos, por prefixo e tolerante a erros de digitação
+    @GetMapping(value = "/search", params = "q", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorPage<PatientSearchHit> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            HttpServletRequest request) {
+        Scopes.requireAdmin(request);
+        return service.search(query, cursor, size);
+    }
+
+    // Formato antigo (lista de pacientes com exatamente esse nome), mantido para os clientes
+    // que ainda chamam ?name=; os novos usam ?q=
+    @Deprecated
+    @GetMapping(value = "/search", params = {"name", "!q"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Patient> searchByName(@RequestParam("name") String name, HttpServletRequest request) {
+        Scopes.requireAdmin(request);
         return service.findByPatientName(name);
     }
 
@@ -54,13 +102,34 @@ public class PatientController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public Patient update(@Valid  @RequestBody Patient Patient) {
-        return service.update(Patient);
+    public ResponseEntity<Patient> update(@Valid  @RequestBody Patient Patient,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          HttpServletRequest request) {
+        Scopes.requirePatient(request, Patient.getId());
+        Patient saved = service.update(Patient, ETags.expectedVersion(ifMatch, Patient.getId()));
+        return ResponseEntity.ok()
+                .eTag(ETags.of(saved.getId(), saved.getVersion()))
+                .body(saved);
     }
 
 
+    // JSON Merge Patch (RFC 7386): só os campos enviados mudam, null apaga o valor.
+    // Exige a versão (If-Match ou "version" no corpo) e responde só com o novo ETag
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<Void> patch(@PathVariable("id") Long id,
+                                      @RequestBody Map<String, Object> patch,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      HttpServletRequest request) {
+        Scopes.requirePatient(request, id);
+        long version = service.patch(id, patch, ETags.expectedVersion(ifMatch, id));
+        return ResponseEntity.noContent()
+                .eTag(ETags.of(id, version))
+                .build();
+    }
+
     @DeleteMapping(value = "/{id}")
-    public ResponseEntity<?> delete(@PathVariable("id") Long id) {
+    public ResponseEntity<?> delete(@PathVariable("id") Long id, HttpServletRequest request) {
+        Scopes.requirePatient(request, id);
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
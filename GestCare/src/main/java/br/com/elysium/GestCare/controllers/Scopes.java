@@ -0,0 +1,35 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.config.AccessTokenFilter;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Limita as requisições ao paciente do token de acesso. Sem paciente na requisição
+// (chave de administração, ou autenticação desligada) nada é restringido.
+final class Scopes {
+
+    private Scopes() {
+    }
+
+    // Paciente do token; null para a chave de administração (ou com a autenticação desligada)
+    static Long patientOf(HttpServletRequest request) {
+        return (Long) request.getAttribute(AccessTokenFilter.PATIENT_ID);
+    }
+
+    // O registro pertence a outro paciente: responde como se não existisse
+    static void requirePatient(HttpServletRequest request, long ownerId) {
+        Object caller = request.getAttribute(AccessTokenFilter.PATIENT_ID);
+        if (caller != null && (Long) caller != ownerId) {
+            throw new ResourceNotFoundException("No records found for this ID!");
+        }
+    }
+
+    // Listagens e operações que cruzam pacientes
+    static void requireAdmin(HttpServletRequest request) {
+        if (request.getAttribute(AccessTokenFilter.PATIENT_ID) != null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "This operation is not allowed for patients!");
+        }
+    }
+}
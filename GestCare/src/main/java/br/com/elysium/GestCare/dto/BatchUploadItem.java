@@ -0,0 +1,11 @@
+package br.com.elysium.GestCare.dto;
+
+// Resultado de cada arquivo de um upload em lote: id preenchido em caso de sucesso, error em caso de falha
+public record BatchUploadItem(
+        int index,
+        String fileName,
+        Long id,
+        String contentHash,
+        String error
+) {
+}
@@ -0,0 +1,10 @@
+package br.com.elysium.GestCare.dto;
+
+// Resumo das versões de uma coleção, calculado no banco: muda quando uma linha é
+// incluída, removida ou alterada, sem precisar carregar as linhas
+public record CollectionVersion(
+        Long count,
+        Long maxId,
+        Long versionSum
+) {
+}
@@ -0,0 +1,47 @@
+package br.com.elysium.GestCare.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Uma página de uma listagem paginada por cursor (keyset). "next" é opaco para o cliente:
+// basta repassá-lo em ?cursor= para obter a página seguinte; null indica a última página.
+public record CursorPage<T>(
+        List<T> items,
+        String next
+) {
+
+    // rows deve ter sido buscado com size + 1 linhas: a linha extra só indica que há mais páginas
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), encode(cursorOf.apply(items.get(size - 1))));
+    }
+
+    // Tamanho pedido pelo cliente, limitado ao máximo configurado
+    public static int size(int requested, int max) {
+        return Math.max(1, Math.min(requested, max));
+    }
+
+    public static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Converte as partes do cursor (separadas por "|") com parser; null para a primeira página
+    public static <R> R decode(String cursor, Function<String[], R> parser) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|"));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido!");
+        }
+    }
+}
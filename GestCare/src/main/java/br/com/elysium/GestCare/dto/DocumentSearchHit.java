@@ -0,0 +1,14 @@
+package br.com.elysium.GestCare.dto;
+
+import java.time.LocalDate;
+
+// Resultado da busca textual nos documentos de um paciente, em ordem de relevância
+public record DocumentSearchHit(
+        Long fileId,
+        String title,
+        String fileName,
+        String fileType,
+        LocalDate fileDate,
+        float score
+) {
+}
@@ -0,0 +1,22 @@
+package br.com.elysium.GestCare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Uma linha da exportação NDJSON de documentos: as colunas da tabela file, com as FKs como ids
+public record FileExportRow(
+        Long id,
+        String title,
+        String doctorName,
+        String doctorCrm,
+        LocalDate fileDate,
+        String description,
+        String fileName,
+        String contentHash,
+        Long fileSize,
+        String contentEncoding,
+        LocalDateTime uploadDate,
+        long hospitalId,
+        Long fileTypeId
+) {
+}
@@ -0,0 +1,23 @@
+package br.com.elysium.GestCare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Linha da listagem de documentos: só as colunas exibidas, com ids (e nomes) no lugar
+// de hospital/paciente/tipo aninhados. Montada direto na consulta, sem carregar entidades.
+public record FileListItem(
+        Long id,
+        String title,
+        String doctorName,
+        LocalDate fileDate,
+        String description,
+        String fileName,
+        String contentHash,
+        Long fileSize,
+        LocalDateTime uploadDate,
+        long hospitalId,
+        String hospitalName,
+        Long fileTypeId,
+        String fileTypeName
+) {
+}
@@ -0,0 +1,9 @@
+package br.com.elysium.GestCare.dto;
+
+// Quantos documentos de cada tipo o paciente tem
+public record FileTypeCount(
+        Long fileTypeId,
+        String name,
+        long files
+) {
+}
@@ -0,0 +1,9 @@
+package br.com.elysium.GestCare.dto;
+
+// Hospital do paciente com o número de documentos dele (zero quando ainda não há nenhum)
+public record HospitalFileCount(
+        long hospitalId,
+        String name,
+        long files
+) {
+}
@@ -0,0 +1,13 @@
+package br.com.elysium.GestCare.dto;
+
+// Linha da listagem de hospitais: o paciente vai só pelo id
+public record HospitalListItem(
+        long id,
+        String name,
+        String cnpj,
+        String telephone,
+        String address,
+        Long version,
+        long patientId
+) {
+}
@@ -0,0 +1,13 @@
+package br.com.elysium.GestCare.dto;
+
+import java.util.List;
+
+// Resultado de uma importação em lote. "errors" traz no máximo gestcare.import.max-reported-errors
+// linhas; "failed" conta todas as rejeitadas.
+public record ImportReport(
+        long rows,
+        long inserted,
+        long failed,
+        List<ImportRowError> errors
+) {
+}
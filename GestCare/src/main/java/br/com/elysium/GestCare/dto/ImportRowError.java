@@ -0,0 +1,9 @@
+package br.com.elysium.GestCare.dto;
+
+// Linha rejeitada na importação (1 = primeiro registro depois do cabeçalho; linhas em branco
+// também contam, então no NDJSON é o número da linha no arquivo)
+public record ImportRowError(
+        long row,
+        String message
+) {
+}
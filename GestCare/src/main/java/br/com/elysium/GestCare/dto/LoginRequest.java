@@ -0,0 +1,12 @@
+package br.com.elysium.GestCare.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+// Credenciais do /auth/login: "login" é o e-mail ou o CPF do paciente
+public record LoginRequest(
+        @NotBlank(message = "Informe o e-mail ou o CPF!")
+        String login,
+        @NotBlank(message = "A senha é obrigatória!")
+        String password
+) {
+}
@@ -0,0 +1,13 @@
+package br.com.elysium.GestCare.dto;
+
+import java.time.Instant;
+
+// Paciente autenticado pelo /auth/login; accessToken vai em Authorization: Bearer
+public record LoginResponse(
+        long patientId,
+        String name,
+        String lastName,
+        String accessToken,
+        Instant expiresAt
+) {
+}
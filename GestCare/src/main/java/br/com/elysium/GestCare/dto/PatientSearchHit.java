@@ -0,0 +1,12 @@
+package br.com.elysium.GestCare.dto;
+
+// Resultado da busca de pacientes, em ordem de relevância
+public record PatientSearchHit(
+        Long id,
+        String name,
+        String lastName,
+        String cpf,
+        String email,
+        float score
+) {
+}
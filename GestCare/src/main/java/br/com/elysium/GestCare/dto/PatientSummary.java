@@ -0,0 +1,15 @@
+package br.com.elysium.GestCare.dto;
+
+import java.util.List;
+
+// Tudo o que o painel do paciente mostra na primeira tela, numa única resposta
+public record PatientSummary(
+        long id,
+        String name,
+        String lastName,
+        long totalFiles,
+        List<HospitalFileCount> hospitals,
+        List<FileTypeCount> fileTypes,
+        List<FileListItem> latestFiles
+) {
+}
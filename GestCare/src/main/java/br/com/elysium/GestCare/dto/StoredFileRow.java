@@ -0,0 +1,13 @@
+package br.com.elysium.GestCare.dto;
+
+// Onde e como o conteúdo de um File está armazenado. Montada na consulta, sem carregar
+// hospital/paciente: vale também para documentos de paciente excluído ainda não purgados.
+public record StoredFileRow(
+        Long id,
+        String filePath,
+        String contentHash,
+        String contentEncoding,
+        Long fileSize,
+        Long storedSize
+) {
+}
@@ -0,0 +1,11 @@
+package br.com.elysium.GestCare.dto;
+
+// Estado de um upload em partes. O "offset" é o último byte confirmado em disco:
+// após uma queda de conexão o cliente retoma o envio a partir dele.
+public record UploadSession(
+        String uploadId,
+        String fileName,
+        long totalSize,
+        long offset
+) {
+}
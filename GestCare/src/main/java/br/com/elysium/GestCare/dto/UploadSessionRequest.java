@@ -0,0 +1,13 @@
+package br.com.elysium.GestCare.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+public record UploadSessionRequest(
+        @NotBlank(message = "O nome do arquivo precisa estar preenchido!")
+        String fileName,
+
+        @Positive(message = "O tamanho total do arquivo precisa ser informado!")
+        long totalSize
+) {
+}
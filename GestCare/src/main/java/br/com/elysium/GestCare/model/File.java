@@ -1,6 +1,7 @@
 package br.com.elysium.GestCare.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
@@ -21,12 +22,19 @@ import java.util.Objects;
         "description",
         "fileName",
         "filePath",
+        "contentHash",
+        "fileSize",
+        "contentEncoding",
         "uploadDate",
+        "version",
         "hospital",
         "fileType"
 })
 @Entity
-@Table(name = "file")
+@Table(name = "file", indexes = {
+        @Index(name = "idx_file_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_file_hospital_date", columnList = "hospital_id, file_date, id")
+})
 public class File {
 
     @Id
@@ -59,10 +67,34 @@ public class File {
     @Column(nullable = false, length = 255)
     private String filePath;
 
+    // SHA-256 do conteúdo: é a chave do arquivo no armazenamento.
+    // Vários registros podem apontar para o mesmo conteúdo (contagem de referências).
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(length = 64)
+    private String contentHash;
+
+    // Tamanho original do conteúdo, antes de qualquer compressão
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long fileSize;
+
+    // Codec usado no armazenamento ("gzip") ou nulo quando gravado sem compressão
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(length = 10)
+    private String contentEncoding;
+
+    // Tamanho ocupado no armazenamento (igual ao fileSize quando não há compressão)
+    @JsonIgnore
+    private Long storedSize;
+
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Column(nullable = false, updatable = false)
     private LocalDateTime uploadDate;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     // Relacionamento com Hospital
     @NotNull(message = "O hospital precisa ser informado")
     @ManyToOne(fetch = FetchType.EAGER)
@@ -106,9 +138,24 @@ public class File {
     public String getFilePath() { return filePath; }
     public void setFilePath(String filePath) { this.filePath = filePath; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getContentEncoding() { return contentEncoding; }
+    public void setContentEncoding(String contentEncoding) { this.contentEncoding = contentEncoding; }
+
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+
     public LocalDateTime getUploadDate() { return uploadDate; }
     public void setUploadDate(LocalDateTime uploadDate) { this.uploadDate = uploadDate; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Hospital getHospital() { return hospital; }
     public void setHospital(Hospital hospital) { this.hospital = hospital; }
 
@@ -118,11 +165,11 @@ public class File {
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof File file)) return false;
-        return Objects.equals(getId(), file.getId()) && Objects.equals(getTitle(), file.getTitle()) && Objects.equals(getDoctorName(), file.getDoctorName()) && Objects.equals(getDoctorCrm(), file.getDoctorCrm()) && Objects.equals(getFileDate(), file.getFileDate()) && Objects.equals(getDescription(), file.getDescription()) && Objects.equals(getFileName(), file.getFileName()) && Objects.equals(getFilePath(), file.getFilePath()) && Objects.equals(getUploadDate(), file.getUploadDate()) && Objects.equals(getHospital(), file.getHospital()) && Objects.equals(getFileType(), file.getFileType());
+        return Objects.equals(getId(), file.getId()) && Objects.equals(getTitle(), file.getTitle()) && Objects.equals(getDoctorName(), file.getDoctorName()) && Objects.equals(getDoctorCrm(), file.getDoctorCrm()) && Objects.equals(getFileDate(), file.getFileDate()) && Objects.equals(getDescription(), file.getDescription()) && Objects.equals(getFileName(), file.getFileName()) && Objects.equals(getFilePath(), file.getFilePath()) && Objects.equals(getContentHash(), file.getContentHash()) && Objects.equals(getFileSize(), file.getFileSize()) && Objects.equals(getContentEncoding(), file.getContentEncoding()) && Objects.equals(getStoredSize(), file.getStoredSize()) && Objects.equals(getUploadDate(), file.getUploadDate()) && Objects.equals(getHospital(), file.getHospital()) && Objects.equals(getFileType(), file.getFileType());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getTitle(), getDoctorName(), getDoctorCrm(), getFileDate(), getDescription(), getFileName(), getFilePath(), getUploadDate(), getHospital(), getFileType());
+        return Objects.hash(getId(), getTitle(), getDoctorName(), getDoctorCrm(), getFileDate(), getDescription(), getFileName(), getFilePath(), getContentHash(), getFileSize(), getContentEncoding(), getStoredSize(), getUploadDate(), getHospital(), getFileType());
     }
 }
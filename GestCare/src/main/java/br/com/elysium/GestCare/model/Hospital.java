@@ -1,6 +1,9 @@
 package br.com.elysium.GestCare.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -14,9 +17,14 @@ import java.util.Objects;
         "cnpj",
         "telephone",
         "address",
+        "version",
         "patient"
 })
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "hospital")
+// Hospitais de paciente excluído (soft delete) somem junto com ele até o purge
+@SQLRestriction("EXISTS (SELECT 1 FROM patient p WHERE p.id = paciente_id AND p.deleted_at IS NULL)")
 @Table(name = "hospital")
 public class Hospital implements Serializable {
 
@@ -39,6 +47,10 @@ public class Hospital implements Serializable {
     @Column(length = 255)
     private String address;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne
     @NotNull(message = "O Hospital precisa estar vinculado a um paciente")
     @JoinColumn(name = "paciente_id", nullable = false)
@@ -63,6 +75,9 @@ public class Hospital implements Serializable {
     public String getAddress() { return address; }
     public void setAddress(String adress) { this.address = adress; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
 
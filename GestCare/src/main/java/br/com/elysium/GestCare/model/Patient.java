@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 import jakarta.validation.constraints.*;
 
 import java.io.Serializable;
@@ -24,11 +27,18 @@ import java.util.Objects;
         "telephone",
         "gender",
         "joinDate",
-        "verified"
+        "verified",
+        "version"
 })
 
 @Entity
-@Table(name = "patient")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient")
+// Paciente excluído (soft delete) some de todas as consultas; o PatientPurgeServices remove os dados depois
+@SQLRestriction("deleted_at IS NULL")
+@Table(name = "patient", indexes = {
+        @Index(name = "idx_patient_deleted_at", columnList = "deleted_at")
+})
 public class Patient implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -82,6 +92,15 @@ public class Patient implements Serializable {
     @Column(columnDefinition = "BIT(1)")
     private Boolean verified;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Preenchido na exclusão; a linha só sai do banco no purge
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @JsonIgnore
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Hospital> hospitals = new ArrayList<>();
@@ -177,6 +196,22 @@ public class Patient implements Serializable {
         this.verified = verified;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     public List<Hospital> getHospitals() {
         return hospitals;
     }
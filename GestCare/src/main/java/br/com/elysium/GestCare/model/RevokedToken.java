@@ -0,0 +1,56 @@
+package br.com.elysium.GestCare.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Revogação de tokens de acesso: de um token só (logout) ou, com tokenId nulo, de todos os
+// tokens do paciente emitidos até revokedAt. Some depois de expiresAt, quando os tokens
+// que ela cobre já expiraram de qualquer forma.
+@Entity
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_id", length = 32)
+    private String tokenId;
+
+    @Column(name = "patient_id", nullable = false)
+    private long patientId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String tokenId, long patientId, Instant revokedAt, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.patientId = patientId;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTokenId() { return tokenId; }
+    public void setTokenId(String tokenId) { this.tokenId = tokenId; }
+
+    public long getPatientId() { return patientId; }
+    public void setPatientId(long patientId) { this.patientId = patientId; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,70 @@
+package br.com.elysium.GestCare.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Fila persistente dos índices de busca: uma linha por alteração ainda não gravada (commit)
+// no índice. Sai da tabela só depois do commit do Lucene, então nada se perde se a fila em
+// memória encher ou a aplicação cair antes do commit periódico.
+@Entity
+@Table(name = "search_index_job", indexes = {
+        @Index(name = "idx_search_index_job_target", columnList = "target, id")
+})
+public class SearchIndexJob {
+
+    // FILE: um documento (reindexado ou removido conforme o banco); PATIENT_FILES: todos os
+    // documentos de um paciente excluído; PATIENT: o cadastro do paciente na busca de pacientes
+    public enum Target { FILE, PATIENT_FILES, PATIENT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Target target;
+
+    @Column(name = "target_id", nullable = false)
+    private long targetId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public SearchIndexJob() {}
+
+    public SearchIndexJob(Target target, long targetId) {
+        this.target = target;
+        this.targetId = targetId;
+    }
+
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Target getTarget() { return target; }
+    public void setTarget(Target target) { this.target = target; }
+
+    public long getTargetId() { return targetId; }
+    public void setTargetId(long targetId) { this.targetId = targetId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SearchIndexJob job)) return false;
+        return Objects.equals(getId(), job.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId());
+    }
+}
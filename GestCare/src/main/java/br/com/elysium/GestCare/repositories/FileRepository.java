@@ -1,20 +1,217 @@
 package br.com.elysium.GestCare.repositories;
 
+import br.com.elysium.GestCare.dto.FileExportRow;
+import br.com.elysium.GestCare.dto.FileListItem;
+import br.com.elysium.GestCare.dto.FileTypeCount;
+import br.com.elysium.GestCare.dto.StoredFileRow;
 import br.com.elysium.GestCare.model.File;
-import br.com.elysium.GestCare.model.Hospital;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, FileRepositoryCustom {
+    // Exportação do prontuário: filtros opcionais (null = sem filtro) e ordem aplicados no banco
     @Query("""
     SELECT f
     FROM File f
     JOIN FETCH f.hospital h
     JOIN FETCH f.fileType t
     WHERE h.patient.id = :patientId
+    AND h.patient.deletedAt IS NULL
+    AND (:hospitalId IS NULL OR h.id = :hospitalId)
+    AND (:fileTypeId IS NULL OR t.id = :fileTypeId)
+    AND (:from IS NULL OR f.fileDate >= :from)
+    AND (:to IS NULL OR f.fileDate <= :to)
+    ORDER BY f.fileDate, f.id
     """)
-    List<File> findFilesByPatientId(@Param("patientId") Long patientId);
+    List<File> findForExport(@Param("patientId") Long patientId,
+                             @Param("hospitalId") Long hospitalId,
+                             @Param("fileTypeId") Long fileTypeId,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    // Mais recentes primeiro; as páginas seguintes continuam depois de (fileDate, id) do último item.
+    // Projeção da listagem: um único SELECT com as colunas exibidas, sem carregar hospital/paciente/tipo.
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.FileListItem(
+        f.id, f.title, f.doctorName, f.fileDate, f.description, f.fileName,
+        f.contentHash, f.fileSize, f.uploadDate, h.id, h.name, t.id, t.name)
+    FROM File f
+    JOIN f.hospital h
+    JOIN f.fileType t
+    WHERE h.patient.id = :patientId
+    AND h.patient.deletedAt IS NULL
+    ORDER BY f.fileDate DESC, f.id DESC
+    """)
+    List<FileListItem> findFirstPageByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.FileListItem(
+        f.id, f.title, f.doctorName, f.fileDate, f.description, f.fileName,
+        f.contentHash, f.fileSize, f.uploadDate, h.id, h.name, t.id, t.name)
+    FROM File f
+    JOIN f.hospital h
+    JOIN f.fileType t
+    WHERE h.patient.id = :patientId
+    AND h.patient.deletedAt IS NULL
+    AND (f.fileDate < :fileDate OR (f.fileDate = :fileDate AND f.id < :id))
+    ORDER BY f.fileDate DESC, f.id DESC
+    """)
+    List<FileListItem> findPageByPatientIdAfter(@Param("patientId") Long patientId,
+                                                @Param("fileDate") LocalDate fileDate,
+                                                @Param("id") Long id,
+                                                Limit limit);
+
+    // Resumo do paciente: documentos por tipo, contados no banco
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.FileTypeCount(t.id, t.name, COUNT(f.id))
+    FROM File f
+    JOIN f.fileType t
+    WHERE f.hospital.patient.id = :patientId
+    AND f.hospital.patient.deletedAt IS NULL
+    GROUP BY t.id, t.name
+    ORDER BY t.name
+    """)
+    List<FileTypeCount> countByFileType(@Param("patientId") Long patientId);
+
+    // Exportação: projeção (nada fica no contexto de persistência), lida aos poucos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.FileExportRow(
+        f.id, f.title, f.doctorName, f.doctorCrm, f.fileDate, f.description, f.fileName,
+        f.contentHash, f.fileSize, f.contentEncoding, f.uploadDate, f.hospital.id, f.fileType.id)
+    FROM File f
+    WHERE f.hospital.patient.deletedAt IS NULL
+    ORDER BY f.id
+    """)
+    Stream<FileExportRow> streamAllForExport();
+
+    // Qualquer registro serve: todos com o mesmo hash apontam para o mesmo conteúdo
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.StoredFileRow(
+        f.id, f.filePath, f.contentHash, f.contentEncoding, f.fileSize, f.storedSize)
+    FROM File f
+    WHERE f.contentHash = :contentHash
+    ORDER BY f.id
+    """)
+    List<StoredFileRow> findStoredByContentHash(@Param("contentHash") String contentHash, Limit limit);
+
+    boolean existsByContentHash(String contentHash);
+
+    // Upload sem bytes: o hash só vale se o próprio paciente já tiver um documento com esse conteúdo
+    @Query("SELECT COUNT(f) > 0 FROM File f WHERE f.contentHash = :contentHash AND f.hospital.patient.id = :patientId")
+    boolean existsByContentHashAndPatientId(@Param("contentHash") String contentHash, @Param("patientId") Long patientId);
+
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.StoredFileRow(
+        f.id, f.filePath, f.contentHash, f.contentEncoding, f.fileSize, f.storedSize)
+    FROM File f
+    WHERE f.contentHash = :contentHash
+    AND f.hospital.patient.id = :patientId
+    ORDER BY f.id
+    """)
+    List<StoredFileRow> findStoredByContentHashAndPatientId(@Param("contentHash") String contentHash,
+                                                            @Param("patientId") Long patientId,
+                                                            Limit limit);
+
+    // Contagem de referências do conteúdo armazenado
+    long countByContentHash(String contentHash);
+
+    long countByFilePath(String filePath);
+
+    // Percorre a tabela em páginas pelo id (usado pela migração do armazenamento)
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.StoredFileRow(
+        f.id, f.filePath, f.contentHash, f.contentEncoding, f.fileSize, f.storedSize)
+    FROM File f
+    WHERE f.id > :after
+    ORDER BY f.id
+    """)
+    List<StoredFileRow> findStoredPage(@Param("after") Long after, Limit limit);
+
+    // Registros antigos com o mesmo caminho apontavam para o mesmo arquivo: todos passam para o hash
+    @Modifying
+    @Transactional
+    @Query("""
+    UPDATE File f
+    SET f.contentHash = :contentHash, f.filePath = :location, f.fileSize = :fileSize, f.version = f.version + 1
+    WHERE f.filePath = :oldPath
+    """)
+    int relocate(@Param("oldPath") String oldPath,
+                 @Param("contentHash") String contentHash,
+                 @Param("location") String location,
+                 @Param("fileSize") long fileSize);
+
+    // Índice de busca: o documento com hospital, paciente e tipo; paciente excluído (soft delete) não entra
+    @Query("""
+    SELECT f
+    FROM File f
+    JOIN FETCH f.hospital h
+    JOIN FETCH h.patient p
+    JOIN FETCH f.fileType
+    WHERE f.id = :id
+    AND p.deletedAt IS NULL
+    """)
+    Optional<File> findIndexableById(@Param("id") Long id);
+
+    @Query("""
+    SELECT f
+    FROM File f
+    JOIN FETCH f.hospital h
+    JOIN FETCH h.patient p
+    JOIN FETCH f.fileType
+    WHERE f.id > :after
+    AND p.deletedAt IS NULL
+    ORDER BY f.id
+    """)
+    List<File> findIndexablePage(@Param("after") Long after, Limit limit);
+
+    // Quantos documentos o índice de busca deveria ter (conferido na subida)
+    @Query("SELECT COUNT(f) FROM File f WHERE f.hospital.patient.deletedAt IS NULL")
+    long countIndexable();
+
+    // Hashes distintos no intervalo (after, to), em ordem: páginas por chave para o reconciliador
+    @Query("""
+    SELECT DISTINCT f.contentHash
+    FROM File f
+    WHERE f.contentHash > :after AND f.contentHash < :to
+    ORDER BY f.contentHash
+    """)
+    List<String> findContentHashesBetween(@Param("after") String after, @Param("to") String to, Limit limit);
+
+    // Documento restrito ao paciente do token (patientId null: chave de administração, sem restrição).
+    // Paciente excluído (soft delete): os documentos dele respondem 404 até o purge
+    @Query("""
+    SELECT f
+    FROM File f
+    WHERE f.id = :id
+    AND (:patientId IS NULL OR f.hospital.patient.id = :patientId)
+    AND f.hospital.patient.deletedAt IS NULL
+    """)
+    Optional<File> findByIdAndPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
+
+    @Query("SELECT f.id FROM File f WHERE f.contentHash = :contentHash")
+    List<Long> findIdsByContentHash(@Param("contentHash") String contentHash);
+
+    // Registros anteriores ao armazenamento por hash
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.StoredFileRow(
+        f.id, f.filePath, f.contentHash, f.contentEncoding, f.fileSize, f.storedSize)
+    FROM File f
+    WHERE f.contentHash IS NULL
+    AND f.id > :after
+    ORDER BY f.id
+    """)
+    List<StoredFileRow> findLegacyPage(@Param("after") Long after, Limit limit);
 }
@@ -0,0 +1,17 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.File;
+
+import java.util.List;
+
+public interface FileRepositoryCustom {
+
+    // INSERT em lote via JDBC; preenche o id de cada File com a chave gerada
+    void insertAll(List<File> files);
+
+    // Próximo lote de documentos dos hospitais do paciente, só com id, hash, codec e caminho
+    // (SQL direto, sem o filtro de excluídos: usado pelo purge de pacientes)
+    List<File> findPurgeBatchByPatientId(long patientId, int limit);
+
+    int deleteByIds(List<Long> ids);
+}
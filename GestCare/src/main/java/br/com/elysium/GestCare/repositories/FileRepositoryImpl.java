@@ -0,0 +1,115 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.File;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Com ids IDENTITY o Hibernate não agrupa INSERTs; aqui o lote vai em um único
+ * batch JDBC (um INSERT de várias linhas com rewriteBatchedStatements=true no MySQL).
+ */
+public class FileRepositoryImpl implements FileRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO file (title, doctor_name, doctor_crm, file_date, description,
+                              file_name, file_path, content_hash, file_size, content_encoding,
+                              stored_size, upload_date, hospital_id, file_type_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void insertAll(List<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        File file = files.get(i);
+                        file.setUploadDate(now);
+                        ps.setString(1, file.getTitle());
+                        ps.setString(2, file.getDoctorName());
+                        ps.setString(3, file.getDoctorCrm());
+                        ps.setObject(4, file.getFileDate());
+                        ps.setString(5, file.getDescription());
+                        ps.setString(6, file.getFileName());
+                        ps.setString(7, file.getFilePath());
+                        ps.setString(8, file.getContentHash());
+                        ps.setObject(9, file.getFileSize(), Types.BIGINT);
+                        ps.setString(10, file.getContentEncoding());
+                        ps.setObject(11, file.getStoredSize(), Types.BIGINT);
+                        ps.setTimestamp(12, Timestamp.valueOf(now));
+                        ps.setLong(13, file.getHospital().getId());
+                        ps.setLong(14, file.getFileType().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return files.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < files.size() && i < keys.size(); i++) {
+            Object key = keys.get(i).values().iterator().next();
+            files.get(i).setId(((Number) key).longValue());
+            // version fica com o default da coluna (0)
+            files.get(i).setVersion(0L);
+        }
+    }
+
+    @Override
+    public List<File> findPurgeBatchByPatientId(long patientId, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT f.id, f.content_hash, f.content_encoding, f.file_path
+                        FROM file f
+                        JOIN hospital h ON h.id = f.hospital_id
+                        WHERE h.paciente_id = ?
+                        ORDER BY f.id
+                        LIMIT ?
+                        """,
+                (row, i) -> {
+                    File file = new File();
+                    file.setId(row.getLong("id"));
+                    file.setContentHash(row.getString("content_hash"));
+                    file.setContentEncoding(row.getString("content_encoding"));
+                    file.setFilePath(row.getString("file_path"));
+                    return file;
+                },
+                patientId, limit);
+    }
+
+    @Override
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update("DELETE FROM file WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+}
@@ -1,15 +1,96 @@
 package br.com.elysium.GestCare.repositories;
 
+import br.com.elysium.GestCare.dto.HospitalListItem;
+import br.com.elysium.GestCare.dto.CollectionVersion;
+import br.com.elysium.GestCare.dto.HospitalFileCount;
 import br.com.elysium.GestCare.model.Hospital;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface HospitalRepository extends JpaRepository<Hospital, Long> {
+public interface HospitalRepository extends JpaRepository<Hospital, Long>, HospitalRepositoryCustom {
 
-    List<Hospital> findByNameContainingIgnoreCaseAndPatientId(
-            String name,
-            Long patientId
+    // Listagens: projeção com o id do paciente (a FK, sem JOIN) no lugar do Patient completo.
+    // name chega escapado (HospitalServices.escapeLike): % e _ digitados são literais
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.HospitalListItem(h.id, h.name, h.cnpj, h.telephone, h.address, h.version, h.patient.id)
+    FROM Hospital h
+    WHERE h.patient.id = :patientId
+    AND LOWER(h.name) LIKE LOWER(CONCAT('%', :name, '%')) ESCAPE '!'
+    ORDER BY h.id
+    """)
+    List<HospitalListItem> findByNameContainingIgnoreCaseAndPatientId(
+            @Param("name") String name,
+            @Param("patientId") Long patientId
     );
 
     List<Hospital> findByPatientId(Long patientId);
-}
\ No newline at end of file
+
+    // Hospital restrito ao paciente do token (patientId null: chave de administração, sem restrição)
+    @Query("SELECT h FROM Hospital h WHERE h.id = :id AND (:patientId IS NULL OR h.patient.id = :patientId)")
+    Optional<Hospital> findByIdAndPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
+
+    // Só a versão, para responder 304 (If-None-Match) sem carregar o hospital
+    @Query("SELECT h.version FROM Hospital h WHERE h.id = :id AND (:patientId IS NULL OR h.patient.id = :patientId)")
+    Optional<Long> findVersionByIdAndPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
+
+    // ETag da lista de hospitais do paciente
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.CollectionVersion(COUNT(h), COALESCE(MAX(h.id), 0), COALESCE(SUM(h.version), 0))
+    FROM Hospital h
+    WHERE h.patient.id = :patientId
+    """)
+    CollectionVersion findCollectionVersionByPatientId(@Param("patientId") Long patientId);
+
+    // Resumo do paciente: cada hospital com o número de documentos (LEFT JOIN mantém os sem documentos)
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.HospitalFileCount(h.id, h.name, COUNT(f.id))
+    FROM Hospital h
+    LEFT JOIN File f ON f.hospital = h
+    WHERE h.patient.id = :patientId
+    GROUP BY h.id, h.name
+    ORDER BY h.name
+    """)
+    List<HospitalFileCount> countFilesByHospital(@Param("patientId") Long patientId);
+
+    // Paginação por cursor: a página seguinte começa depois do último id visto
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.HospitalListItem(h.id, h.name, h.cnpj, h.telephone, h.address, h.version, h.patient.id)
+    FROM Hospital h
+    WHERE h.id > :id
+    ORDER BY h.id
+    """)
+    List<HospitalListItem> findByIdGreaterThanOrderByIdAsc(@Param("id") Long id, Limit limit);
+
+    // Vai para o cache de consultas quando o cache de segundo nível está ligado (HibernateCacheConfig)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "hospitals-by-patient")
+    })
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.HospitalListItem(h.id, h.name, h.cnpj, h.telephone, h.address, h.version, h.patient.id)
+    FROM Hospital h
+    WHERE h.patient.id = :patientId AND h.id > :id
+    ORDER BY h.id
+    """)
+    List<HospitalListItem> findByPatientIdAndIdGreaterThanOrderByIdAsc(@Param("patientId") Long patientId,
+                                                                       @Param("id") Long id,
+                                                                       Limit limit);
+
+    // Exportação: projeção (nada fica no contexto de persistência), lida aos poucos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+    SELECT new br.com.elysium.GestCare.dto.HospitalListItem(h.id, h.name, h.cnpj, h.telephone, h.address, h.version, h.patient.id)
+    FROM Hospital h
+    ORDER BY h.id
+    """)
+    Stream<HospitalListItem> streamAll();
+}
@@ -0,0 +1,16 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.Hospital;
+
+import java.util.List;
+
+public interface HospitalRepositoryCustom {
+
+    // INSERT em lote via JDBC; preenche o id de cada Hospital com a chave gerada
+    void insertAll(List<Hospital> hospitals);
+
+    // SQL direto, sem o filtro de excluídos: usados pelo purge de pacientes
+    List<Long> findIdsByPatientId(long patientId, int limit);
+
+    int deleteByIds(List<Long> ids);
+}
@@ -0,0 +1,82 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.Hospital;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+// Importação em lote de hospitais: um único batch JDBC por lote (ver PatientRepositoryImpl)
+public class HospitalRepositoryImpl implements HospitalRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO hospital (name, cnpj, telephone, address, paciente_id)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void insertAll(List<Hospital> hospitals) {
+        if (hospitals.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Hospital hospital = hospitals.get(i);
+                        ps.setString(1, hospital.getName());
+                        ps.setString(2, hospital.getCnpj());
+                        ps.setString(3, hospital.getTelephone());
+                        ps.setString(4, hospital.getAddress());
+                        ps.setLong(5, hospital.getPatient().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return hospitals.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < hospitals.size() && i < keys.size(); i++) {
+            Object key = keys.get(i).values().iterator().next();
+            hospitals.get(i).setId(((Number) key).longValue());
+            // version fica com o default da coluna (0)
+            hospitals.get(i).setVersion(0L);
+        }
+    }
+
+    @Override
+    public List<Long> findIdsByPatientId(long patientId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM hospital WHERE paciente_id = ? ORDER BY id LIMIT ?",
+                Long.class, patientId, limit);
+    }
+
+    @Override
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update("DELETE FROM hospital WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+}
@@ -2,13 +2,56 @@ package br.com.elysium.GestCare.repositories;
 
 import br.com.elysium.GestCare.model.Hospital;
 import br.com.elysium.GestCare.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientRepositoryCustom {
 
     List<Patient> findByName(
             String name
     );
+
+    // Só a versão, para responder 304 (If-None-Match) sem carregar o paciente
+    @Query("SELECT p.version FROM Patient p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Soft delete: uma linha só, sem carregar o paciente nem os hospitais (o purge faz o resto)
+    @Modifying
+    @Query("UPDATE Patient p SET p.deletedAt = :now, p.version = p.version + 1 WHERE p.id = :id AND p.deletedAt IS NULL")
+    int softDelete(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Login: e-mail ou CPF
+    @Query("SELECT p FROM Patient p WHERE p.email = :login OR p.cpf = :login")
+    Optional<Patient> findByLogin(@Param("login") String login);
+
+    // Regrava só o hash da senha (ex.: custo do BCrypt aumentado), sem mexer na versão
+    @Modifying
+    @Transactional
+    @Query("UPDATE Patient p SET p.password = :password WHERE p.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    // Paginação por cursor: a página seguinte começa depois do último id visto
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Exportação: lida aos poucos (fetch size) sem passar pelo cache de segundo nível.
+    // Precisa de uma transação aberta enquanto o Stream é consumido.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT p FROM Patient p ORDER BY p.id")
+    Stream<Patient> streamAll();
 }
@@ -0,0 +1,22 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.Patient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface PatientRepositoryCustom {
+
+    // INSERT em lote via JDBC; preenche o id de cada Patient com a chave gerada
+    void insertAll(List<Patient> patients);
+
+    // CPF -> id dos pacientes já cadastrados (CPFs não encontrados ficam de fora)
+    Map<String, Long> findIdsByCpf(Collection<String> cpfs);
+
+    // Pacientes excluídos (soft delete) ainda não removidos pelo purge, os mais antigos primeiro
+    List<Long> findDeletedIds(int limit);
+
+    // Remove a linha do paciente já excluído (depois que hospitais e documentos saíram)
+    int purge(long id);
+}
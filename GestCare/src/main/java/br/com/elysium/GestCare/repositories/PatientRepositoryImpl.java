@@ -0,0 +1,110 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.Patient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importação em lote de pacientes: com ids IDENTITY o Hibernate faria um INSERT por
+ * linha; aqui o lote vai em um único batch JDBC (rewriteBatchedStatements=true no MySQL).
+ */
+public class PatientRepositoryImpl implements PatientRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO patient (first_name, last_name, cpf, birth_date, email,
+                                 telephone, password, gender, join_date, verified)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void insertAll(List<Patient> patients) {
+        if (patients.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Patient patient = patients.get(i);
+                        patient.setJoinDate(now);
+                        ps.setString(1, patient.getName());
+                        ps.setString(2, patient.getLastName());
+                        ps.setString(3, patient.getCpf());
+                        ps.setDate(4, Date.valueOf(patient.getBirthDate()));
+                        ps.setString(5, patient.getEmail());
+                        ps.setString(6, patient.getTelephone());
+                        ps.setString(7, patient.getPassword());
+                        ps.setInt(8, patient.getGender());
+                        ps.setTimestamp(9, Timestamp.valueOf(now));
+                        ps.setObject(10, patient.getVerified(), Types.BIT);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return patients.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < patients.size() && i < keys.size(); i++) {
+            Object key = keys.get(i).values().iterator().next();
+            patients.get(i).setId(((Number) key).longValue());
+            // version fica com o default da coluna (0)
+            patients.get(i).setVersion(0L);
+        }
+    }
+
+    @Override
+    public Map<String, Long> findIdsByCpf(Collection<String> cpfs) {
+        Map<String, Long> ids = new HashMap<>();
+        if (cpfs.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query(
+                "SELECT id, cpf FROM patient WHERE cpf IN (:cpfs) AND deleted_at IS NULL",
+                Map.of("cpfs", cpfs),
+                (RowCallbackHandler) row -> ids.put(row.getString("cpf"), row.getLong("id")));
+        return ids;
+    }
+
+    @Override
+    public List<Long> findDeletedIds(int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM patient WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT ?",
+                Long.class, limit);
+    }
+
+    @Override
+    public int purge(long id) {
+        return jdbcTemplate.update("DELETE FROM patient WHERE id = ? AND deleted_at IS NOT NULL", id);
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.PreviewJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PreviewJobRepository extends JpaRepository<PreviewJob, Long> {
+
+    Optional<PreviewJob> findByContentHash(String contentHash);
+
+    List<PreviewJob> findTop50ByStatusOrderByIdAsc(PreviewJob.Status status);
+
+    // Só um worker consegue "pegar" o job: o UPDATE condicional é atômico no banco
+    @Modifying
+    @Transactional
+    @Query("UPDATE PreviewJob j SET j.status = :to WHERE j.id = :id AND j.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") PreviewJob.Status from,
+                   @Param("to") PreviewJob.Status to);
+
+    // Usado na inicialização: jobs que estavam rodando quando a aplicação caiu voltam para a fila
+    @Modifying
+    @Transactional
+    @Query("UPDATE PreviewJob j SET j.status = :to WHERE j.status = :from")
+    int transitionAll(@Param("from") PreviewJob.Status from,
+                      @Param("to") PreviewJob.Status to);
+
+    @Transactional
+    void deleteByContentHash(String contentHash);
+}
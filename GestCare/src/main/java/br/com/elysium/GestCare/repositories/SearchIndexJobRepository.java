@@ -0,0 +1,16 @@
+package br.com.elysium.GestCare.repositories;
+
+import br.com.elysium.GestCare.model.SearchIndexJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SearchIndexJobRepository extends JpaRepository<SearchIndexJob, Long> {
+
+    // Pendentes de um índice, em ordem, páginas por chave (id)
+    List<SearchIndexJob> findByTargetInAndIdGreaterThanOrderByIdAsc(Collection<SearchIndexJob.Target> targets,
+                                                                    Long id,
+                                                                    Limit limit);
+}
@@ -0,0 +1,212 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.model.RevokedToken;
+import br.com.elysium.GestCare.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Tokens de acesso sem estado: "payload.assinatura", com o payload (paciente, id do token,
+ * emissão e expiração) em Base64URL e a assinatura HMAC-SHA256 dele. A verificação não vai
+ * ao banco: só confere a assinatura, a expiração e o conjunto de revogações em memória.
+ *
+ * As revogações (logout de um token, ou todos os tokens de um paciente excluído) vão para a
+ * tabela revoked_token e são relidas a cada revocation-refresh-ms; numa instância diferente
+ * da que revogou, o token ainda vale até a próxima leitura. Cada revogação só fica no
+ * conjunto até os tokens que ela cobre expirarem, então ele se mantém pequeno.
+ *
+ * Sem gestcare.auth.token-secret a chave é gerada na subida: os tokens deixam de valer a
+ * cada restart e não servem entre instâncias.
+ */
+@Service
+public class AccessTokenServices {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private Logger logger = Logger.getLogger(AccessTokenServices.class.getName());
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${gestcare.auth.token-secret:}")
+    private String secret;
+
+    @Value("${gestcare.auth.token-ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ReentrantLock revocationLock = new ReentrantLock();
+
+    private Mac prototype;
+
+    // id do token -> expiração (s); paciente -> revogados os tokens emitidos até esse instante (s)
+    private volatile Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> revokedPatients = new ConcurrentHashMap<>();
+
+    public record AccessToken(long patientId, String tokenId, long issuedAt, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void start() throws GeneralSecurityException {
+        byte[] key;
+        if (secret.isBlank()) {
+            logger.warning("gestcare.auth.token-secret is not set; using a random key (tokens will not survive a restart)!");
+            key = new byte[32];
+            random.nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < 32) {
+                throw new IllegalStateException("gestcare.auth.token-secret must have at least 32 bytes");
+            }
+        }
+        prototype = Mac.getInstance(ALGORITHM);
+        prototype.init(new SecretKeySpec(key, ALGORITHM));
+
+        refreshRevocations();
+    }
+
+    public AccessToken issue(long patientId) {
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        long now = Instant.now().getEpochSecond();
+        return new AccessToken(patientId, HexFormat.of().formatHex(id), now, now + ttlMinutes * 60);
+    }
+
+    public String encode(AccessToken token) {
+        String payload = base64(token.patientId() + "." + token.tokenId() + "." + token.issuedAt() + "." + token.expiresAt());
+        return payload + "." + base64(sign(payload));
+    }
+
+    // Vazio para token malformado, com assinatura inválida, expirado ou revogado
+    public Optional<AccessToken> verify(String token) {
+        int dot = token.lastIndexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+
+        AccessToken access;
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return Optional.empty();
+            }
+            String[] parts = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8).split("\\.");
+            if (parts.length != 4) {
+                return Optional.empty();
+            }
+            access = new AccessToken(Long.parseLong(parts[0]), parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (access.expiresAt() <= Instant.now().getEpochSecond()
+                || revokedTokens.containsKey(access.tokenId())) {
+            return Optional.empty();
+        }
+        Long cutoff = revokedPatients.get(access.patientId());
+        if (cutoff != null && access.issuedAt() <= cutoff) {
+            return Optional.empty();
+        }
+        return Optional.of(access);
+    }
+
+    // Logout: revoga só este token
+    public void revoke(AccessToken token) {
+        revokedTokenRepository.save(new RevokedToken(token.tokenId(), token.patientId(),
+                Instant.now(), Instant.ofEpochSecond(token.expiresAt())));
+        revocationLock.lock();
+        try {
+            revokedTokens.put(token.tokenId(), token.expiresAt());
+        } finally {
+            revocationLock.unlock();
+        }
+    }
+
+    // Todos os tokens do paciente emitidos até agora (ex.: paciente excluído)
+    public void revokePatient(long patientId) {
+        Instant now = Instant.now();
+        revokedTokenRepository.save(new RevokedToken(null, patientId, now, now.plus(Duration.ofMinutes(ttlMinutes))));
+        revocationLock.lock();
+        try {
+            revokedPatients.merge(patientId, now.getEpochSecond(), Math::max);
+        } finally {
+            revocationLock.unlock();
+        }
+    }
+
+    // Relê as revogações (inclusive as feitas por outras instâncias) e descarta as vencidas
+    @Scheduled(fixedDelayString = "${gestcare.auth.revocation-refresh-ms:30000}")
+    public void refreshRevocations() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteExpired(now);
+
+        Map<String, Long> tokens = new ConcurrentHashMap<>();
+        Map<Long, Long> patients = new ConcurrentHashMap<>();
+        for (RevokedToken revoked : revokedTokenRepository.findByExpiresAtAfter(now)) {
+            if (revoked.getTokenId() != null) {
+                tokens.put(revoked.getTokenId(), revoked.getExpiresAt().getEpochSecond());
+            } else {
+                patients.merge(revoked.getPatientId(), revoked.getRevokedAt().getEpochSecond(), Math::max);
+            }
+        }
+
+        // Revogações locais feitas durante a leitura não podem se perder na troca dos conjuntos
+        long nowSeconds = now.getEpochSecond();
+        long ttlSeconds = ttlMinutes * 60;
+        revocationLock.lock();
+        try {
+            revokedTokens.forEach((id, expiresAt) -> {
+                if (expiresAt > nowSeconds) {
+                    tokens.putIfAbsent(id, expiresAt);
+                }
+            });
+            revokedPatients.forEach((patientId, cutoff) -> {
+                if (cutoff + ttlSeconds > nowSeconds) {
+                    patients.merge(patientId, cutoff, Math::max);
+                }
+            });
+            revokedTokens = tokens;
+            revokedPatients = patients;
+        } finally {
+            revocationLock.unlock();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac não é thread-safe: cada verificação usa uma cópia da instância já inicializada
+            Mac mac = (Mac) prototype.clone();
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String base64(String value) {
+        return base64(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String base64(byte[] value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+    }
+}
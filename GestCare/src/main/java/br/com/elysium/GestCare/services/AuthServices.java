@@ -0,0 +1,62 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.LoginResponse;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.services.AccessTokenServices.AccessToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.logging.Logger;
+
+/**
+ * Login por e-mail ou CPF. Sem transação de propósito: o BCrypt roda (no pool do
+ * PasswordHashingServices) sem segurar conexão com o banco. Login inexistente custa o
+ * mesmo que senha errada, e as duas respostas são iguais. O login devolve um token de
+ * acesso (AccessTokenServices); o logout o revoga.
+ */
+@Service
+public class AuthServices {
+
+    private Logger logger = Logger.getLogger(AuthServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PasswordHashingServices passwordHashingServices;
+
+    @Autowired
+    private AccessTokenServices accessTokenServices;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public LoginResponse login(String login, String password) {
+        Patient patient = patientRepository.findByLogin(login.trim()).orElse(null);
+
+        if (!passwordHashingServices.matches(password, patient != null ? patient.getPassword() : null)) {
+            meterRegistry.counter("gestcare.auth.login", "result", "failure").increment();
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid login or password!");
+        }
+        meterRegistry.counter("gestcare.auth.login", "result", "success").increment();
+
+        // Senha antiga em texto puro, ou custo abaixo do configurado: regrava com o hash atual
+        if (passwordHashingServices.needsRehash(patient.getPassword())) {
+            logger.info("Rehashing password of Patient " + patient.getId() + "!");
+            patientRepository.updatePassword(patient.getId(), passwordHashingServices.hash(password));
+        }
+
+        AccessToken token = accessTokenServices.issue(patient.getId());
+        return new LoginResponse(patient.getId(), patient.getName(), patient.getLastName(),
+                accessTokenServices.encode(token), Instant.ofEpochSecond(token.expiresAt()));
+    }
+
+    public void logout(AccessToken token) {
+        accessTokenServices.revoke(token);
+    }
+}
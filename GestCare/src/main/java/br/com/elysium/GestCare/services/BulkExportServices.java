@@ -0,0 +1,121 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação completa (BI, backups) de pacientes, hospitais e documentos em NDJSON:
+ * um objeto JSON por linha, escrito direto na resposta, opcionalmente em gzip.
+ *
+ * As linhas vêm de Streams dos repositórios com fetch size (com useCursorFetch=true na URL
+ * do MySQL o driver busca de 1000 em 1000 em vez de trazer a tabela inteira). Pacientes são
+ * entidades e saem do contexto de persistência logo depois de escritas; hospitais e
+ * documentos são projeções e nem entram nele. A memória usada não depende do tamanho da tabela.
+ */
+@Service
+public class BulkExportServices {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte NEWLINE = '\n';
+
+    private Logger logger = Logger.getLogger(BulkExportServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void start() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void writePatients(OutputStream out, boolean gzip) throws IOException {
+        write("patients", patientRepository::streamAll, this::detach, out, gzip);
+    }
+
+    public void writeHospitals(OutputStream out, boolean gzip) throws IOException {
+        write("hospitals", hospitalRepository::streamAll, row -> { }, out, gzip);
+    }
+
+    public void writeFiles(OutputStream out, boolean gzip) throws IOException {
+        write("files", fileRepository::streamAllForExport, row -> { }, out, gzip);
+    }
+
+    // O Stream só pode ser lido dentro da transação (a conexão fica aberta até o fim)
+    private <T> void write(String name,
+                           Supplier<Stream<T>> rows,
+                           Consumer<T> afterWrite,
+                           OutputStream out,
+                           boolean gzip) throws IOException {
+
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        long[] written = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    stream.forEach(row -> {
+                        try {
+                            target.write(objectMapper.writeValueAsBytes(row));
+                            target.write(NEWLINE);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        afterWrite.accept(row);
+                        written[0]++;
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Normalmente o cliente desistiu do download no meio
+            logger.warning("Export of " + name + " interrupted after " + written[0] + " rows: " + e.getMessage());
+            throw e.getCause();
+        }
+
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        target.flush();
+        logger.info("Exported " + written[0] + " " + name + "!");
+    }
+
+    private void detach(Patient patient) {
+        entityManager.detach(patient);
+    }
+}
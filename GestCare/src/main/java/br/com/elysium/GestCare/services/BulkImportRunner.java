@@ -0,0 +1,63 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.ImportReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * Importação em lote pela linha de comando, sem passar pelo HTTP:
+ *   java -jar GestCare.jar --gestcare.import.patients=pacientes.csv --gestcare.import.hospitals=hospitais.ndjson
+ *
+ * Pacientes são importados antes dos hospitais (que podem referenciá-los pelo CPF).
+ * O formato vem da extensão: .ndjson/.jsonl ou CSV.
+ */
+@Component
+@ConditionalOnExpression("'${gestcare.import.patients:}' != '' or '${gestcare.import.hospitals:}' != ''")
+public class BulkImportRunner implements ApplicationRunner {
+
+    private Logger logger = Logger.getLogger(BulkImportRunner.class.getName());
+
+    @Autowired
+    private BulkImportServices bulkImportServices;
+
+    @Value("${gestcare.import.patients:}")
+    private String patientsFile;
+
+    @Value("${gestcare.import.hospitals:}")
+    private String hospitalsFile;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!patientsFile.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(patientsFile))) {
+                log(patientsFile, bulkImportServices.importPatients(in, isNdjson(patientsFile)));
+            }
+        }
+        if (!hospitalsFile.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(hospitalsFile))) {
+                log(hospitalsFile, bulkImportServices.importHospitals(in, isNdjson(hospitalsFile)));
+            }
+        }
+    }
+
+    private boolean isNdjson(String file) {
+        String name = file.toLowerCase();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    private void log(String file, ImportReport report) {
+        logger.info(file + ": " + report.inserted() + " of " + report.rows() + " rows imported, "
+                + report.failed() + " rejected.");
+        report.errors().forEach(error -> logger.warning(file + " row " + error.row() + ": " + error.message()));
+    }
+}
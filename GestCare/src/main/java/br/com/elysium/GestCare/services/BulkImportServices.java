@@ -0,0 +1,494 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.dto.ImportReport;
+import br.com.elysium.GestCare.dto.ImportRowError;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em lote de pacientes e hospitais (cadastro de uma rede nova) a partir de
+ * CSV (com cabeçalho, separado por vírgula ou ponto e vírgula) ou NDJSON.
+ *
+ * A entrada é lida em streaming e cada linha é validada com as mesmas anotações
+ * (Jakarta Validation) das entidades. As linhas válidas seguem em lotes para alguns
+ * escritores em paralelo, cada lote num único batch JDBC e numa transação própria. Se um
+ * lote falhar no banco (CPF repetido, paciente inexistente...), as linhas dele são
+ * regravadas uma a uma para apontar exatamente quais foram rejeitadas.
+ *
+ * Hospitais indicam o paciente por "patientId" ou "patientCpf" (útil quando os pacientes
+ * acabaram de ser importados e o sistema de origem não conhece os ids).
+ *
+ * Senhas: um hash BCrypt ($2a$/$2b$/$2y$) é gravado como veio, sem custo; é o caminho para
+ * importações grandes, já que cada senha em texto puro custa um BCrypt inteiro (~100 ms) na
+ * thread de escrita. Com plaintext-passwords=reject, linhas com senha em texto puro são
+ * recusadas e a importação anda na velocidade do banco. Hashes com custo menor que o
+ * configurado são refeitos no primeiro login (PasswordHashingServices.needsRehash).
+ */
+@Service
+public class BulkImportServices {
+
+    private Logger logger = Logger.getLogger(BulkImportServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private PatientSearchServices patientSearchServices;
+
+    @Autowired
+    private PasswordHashingServices passwordHashingServices;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${gestcare.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${gestcare.import.writers:4}")
+    private int writers;
+
+    @Value("${gestcare.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // hash: senhas em texto puro passam pelo BCrypt na importação; reject: só hashes prontos
+    @Value("${gestcare.import.plaintext-passwords:hash}")
+    private String plaintextPasswords;
+
+    private ExecutorService writerExecutor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        writerExecutor = Executors.newFixedThreadPool(writers, workerThreads.ioBound("bulk-import"));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writerExecutor.shutdownNow();
+    }
+
+    public ImportReport importPatients(InputStream in, boolean ndjson) throws IOException {
+        return run("patients", in, ndjson, this::toPatient, this::writePatients);
+    }
+
+    public ImportReport importHospitals(InputStream in, boolean ndjson) throws IOException {
+        return run("hospitals", in, ndjson, this::toHospital, this::writeHospitals);
+    }
+
+    // Lê, valida e agrupa em lotes; no máximo 2 lotes por escritor ficam em memória esperando
+    private <T> ImportReport run(String name,
+                                 InputStream in,
+                                 boolean ndjson,
+                                 Function<Map<String, Object>, ImportRow<T>> convert,
+                                 ChunkWriter<T> writer) throws IOException {
+
+        long started = System.nanoTime();
+        Tally tally = new Tally(maxReportedErrors);
+        Semaphore inFlight = new Semaphore(writers * 2);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<ImportRow<T>> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RecordReader records = ndjson ? new NdjsonReader(reader, objectMapper) : new CsvReader(reader);
+
+        // row: posição do registro na entrada, contando também os malformados e os em branco,
+        // para o erro apontar o registro certo; rows: só os que tinham conteúdo
+        long row = 0;
+        long rows = 0;
+        try {
+            Map<String, Object> record;
+            while (true) {
+                try {
+                    record = records.next();
+                } catch (RuntimeException e) {
+                    // NDJSON malformado: só essa linha é perdida
+                    rows++;
+                    tally.error(++row, "Linha inválida: " + e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                row++;
+                if (record.isEmpty()) {
+                    continue;
+                }
+                rows++;
+
+                ImportRow<T> parsed;
+                try {
+                    parsed = convert.apply(record);
+                } catch (RuntimeException e) {
+                    tally.error(row, "Valores inválidos: " + e.getMessage());
+                    continue;
+                }
+
+                String violations = violations(parsed.entity());
+                if (violations != null) {
+                    tally.error(row, violations);
+                    continue;
+                }
+
+                chunk.add(new ImportRow<>(row, parsed.entity(), parsed.patientCpf()));
+                if (chunk.size() >= batchSize) {
+                    submit(chunk, writer, tally, inFlight, pending);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, writer, tally, inFlight, pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida", e);
+        } finally {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        }
+
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        logger.info("Imported " + tally.inserted.get() + " of " + rows + " " + name + " in " + millis + " ms ("
+                + (rows * 1000 / millis) + " rows/s)!");
+        return tally.report(rows);
+    }
+
+    private <T> void submit(List<ImportRow<T>> chunk,
+                            ChunkWriter<T> writer,
+                            Tally tally,
+                            Semaphore inFlight,
+                            List<CompletableFuture<Void>> pending) throws InterruptedException {
+        inFlight.acquire();
+        pending.add(CompletableFuture.runAsync(() -> {
+            try {
+                writer.write(chunk, tally);
+            } catch (RuntimeException e) {
+                chunk.forEach(row -> tally.error(row.line(), "Erro ao gravar: " + e.getMessage()));
+            } finally {
+                inFlight.release();
+            }
+        }, writerExecutor));
+    }
+
+    // ======== PACIENTES ========
+
+    private ImportRow<Patient> toPatient(Map<String, Object> record) {
+        Patient patient = objectMapper.convertValue(record, Patient.class);
+        String password = patient.getPassword();
+        if (password != null && !passwordHashingServices.isBcryptHash(password)) {
+            if (password.startsWith("$2")) {
+                throw new IllegalArgumentException("password: hash BCrypt malformado");
+            }
+            if ("reject".equals(plaintextPasswords)) {
+                throw new IllegalArgumentException("password: informe o hash BCrypt, não a senha em texto puro");
+            }
+        }
+        return new ImportRow<>(0, patient, null);
+    }
+
+    private void writePatients(List<ImportRow<Patient>> chunk, Tally tally) {
+        // Hashes prontos vão como vieram; o texto puro (já validado) passa pelo BCrypt no pool
+        // limitado do PasswordHashingServices: as threads de escrita são virtuais e só esperam
+        for (ImportRow<Patient> row : chunk) {
+            String password = row.entity().getPassword();
+            if (!passwordHashingServices.isBcryptHash(password)) {
+                row.entity().setPassword(passwordHashingServices.hashWaiting(password));
+            }
+        }
+        List<Patient> inserted = insert(chunk, patientRepository::insertAll, tally);
+        // A busca de pacientes passa a encontrar os importados sem reconstruir o índice
+        patientSearchServices.indexAll(inserted);
+    }
+
+    // ======== HOSPITAIS ========
+
+    private ImportRow<Hospital> toHospital(Map<String, Object> record) {
+        Map<String, Object> fields = new HashMap<>(record);
+        Object patientId = fields.remove("patientId");
+        Object patientCpf = fields.remove("patientCpf");
+        fields.remove("patient");
+
+        Hospital hospital = objectMapper.convertValue(fields, Hospital.class);
+        Patient patient = new Patient();
+        if (patientId != null) {
+            patient.setId(Long.parseLong(patientId.toString().trim()));
+            patientCpf = null;
+        } else if (patientCpf == null) {
+            throw new IllegalArgumentException("patientId ou patientCpf precisa ser informado");
+        }
+        hospital.setPatient(patient);
+        return new ImportRow<>(0, hospital, patientCpf != null ? patientCpf.toString().trim() : null);
+    }
+
+    private void writeHospitals(List<ImportRow<Hospital>> chunk, Tally tally) {
+        // Uma consulta por lote para trocar os CPFs pelos ids dos pacientes
+        Set<String> cpfs = chunk.stream()
+                .map(ImportRow::patientCpf)
+                .filter(cpf -> cpf != null)
+                .collect(Collectors.toCollection(HashSet::new));
+        Map<String, Long> ids = patientRepository.findIdsByCpf(cpfs);
+
+        List<ImportRow<Hospital>> resolved = new ArrayList<>(chunk.size());
+        for (ImportRow<Hospital> row : chunk) {
+            if (row.patientCpf() != null) {
+                Long id = ids.get(row.patientCpf());
+                if (id == null) {
+                    tally.error(row.line(), "Nenhum paciente com o CPF " + row.patientCpf());
+                    continue;
+                }
+                row.entity().getPatient().setId(id);
+            }
+            resolved.add(row);
+        }
+
+        insert(resolved, hospitalRepository::insertAll, tally);
+
+        // Os INSERTs via JDBC não passam pelo Hibernate: a consulta de hospitais por paciente em cache fica velha
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("hospitals-by-patient");
+    }
+
+    // ======== GRAVAÇÃO ========
+
+    // Lote inteiro numa transação; se o banco recusar, linha a linha para achar as rejeitadas
+    private <T> List<T> insert(List<ImportRow<T>> chunk, Consumer<List<T>> insertAll, Tally tally) {
+        List<T> entities = chunk.stream().map(ImportRow::entity).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertAll.accept(entities));
+            tally.inserted.addAndGet(entities.size());
+            return entities;
+        } catch (DataAccessException e) {
+            logger.fine("Batch rejected, retrying row by row: " + e.getMessage());
+        }
+
+        List<T> inserted = new ArrayList<>(chunk.size());
+        for (ImportRow<T> row : chunk) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertAll.accept(List.of(row.entity())));
+                inserted.add(row.entity());
+                tally.inserted.incrementAndGet();
+            } catch (DataAccessException e) {
+                Throwable cause = e.getMostSpecificCause();
+                tally.error(row.line(), "Rejeitada pelo banco: " + cause.getMessage());
+            }
+        }
+        return inserted;
+    }
+
+    private String violations(Object entity) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // ======== TIPOS INTERNOS ========
+
+    private record ImportRow<T>(long line, T entity, String patientCpf) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(List<ImportRow<T>> chunk, Tally tally);
+    }
+
+    // Contadores compartilhados pelos escritores; guarda só os primeiros erros
+    private static final class Tally {
+
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxErrors;
+
+        private Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void error(long row, String message) {
+            failed.incrementAndGet();
+            lock.lock();
+            try {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ImportRowError(row, message));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private ImportReport report(long rows) {
+            lock.lock();
+            try {
+                List<ImportRowError> sorted = new ArrayList<>(errors);
+                sorted.sort((a, b) -> Long.compare(a.row(), b.row()));
+                return new ImportReport(rows, inserted.get(), failed.get(), sorted);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private interface RecordReader {
+        // Próximo registro; vazio para linha em branco, null no fim da entrada
+        Map<String, Object> next() throws IOException;
+    }
+
+    private static final class NdjsonReader implements RecordReader {
+
+        private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() { };
+
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+
+        private NdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            return line.isBlank() ? Map.of() : objectMapper.readValue(line, MAP);
+        }
+    }
+
+    // CSV com cabeçalho (RFC 4180: campos entre aspas podem ter separador, aspas "" e quebras de linha)
+    private static final class CsvReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private final char delimiter;
+        private final List<String> header;
+
+        private CsvReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            reader.mark(64 * 1024);
+            String first = reader.readLine();
+            reader.reset();
+            // Planilhas em português costumam exportar com ";"
+            this.delimiter = first != null && first.indexOf(';') >= 0 && first.indexOf(',') < 0 ? ';' : ',';
+            List<String> names = readFields();
+            this.header = names == null ? List.of() : names.stream()
+                    .map(name -> name.replace("\uFEFF", "").trim())
+                    .toList();
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            List<String> fields = readFields();
+            if (fields == null) {
+                return null;
+            }
+            Map<String, Object> record = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                String value = fields.get(i).trim();
+                if (!value.isEmpty()) {
+                    record.put(header.get(i), value);
+                }
+            }
+            return record;
+        }
+
+        private List<String> readFields() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch != '"') {
+                        field.append(ch);
+                        continue;
+                    }
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.UploadSession;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Upload em partes (init / append por offset / complete).
+ *
+ * Cada sessão é um par de arquivos em disco: "<id>.part" com os bytes já recebidos
+ * e "<id>.properties" com os metadados. O offset confirmado é sempre o tamanho do
+ * ".part", então uma conexão que cai no meio de um pedaço retoma do último byte gravado,
+ * inclusive depois de um restart da aplicação.
+ *
+ * Sessões sem nenhum envio há mais de session-ttl-hours são apagadas por expireSessions.
+ *
+ * A sessão pertence ao paciente do token que a criou (gravado nos metadados): para outro
+ * paciente ela não existe (404). patientId null é a chave de administração, que vê todas.
+ */
+@Service
+public class ChunkedUploadServices {
+
+    // Buffer fixo por requisição: o consumo de memória não depende do tamanho do arquivo
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Logger logger = Logger.getLogger(ChunkedUploadServices.class.getName());
+
+    @Autowired
+    private FileServices fileServices;
+
+    @Value("${gestcare.upload.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    private Path sessionDir = Path.of(System.getProperty("user.dir"), "upload-sessions");
+
+    // Um único writer por sessão: dois envios simultâneos do mesmo pedaço corromperiam o arquivo.
+    // O FileLock do canal só separa processos; dentro da JVM ele lança
+    // OverlappingFileLockException, por isso o lock em memória vem antes
+    private final ConcurrentMap<String, ReentrantLock> sessionLocks = new ConcurrentHashMap<>();
+
+    public UploadSession init(String fileName, long totalSize, Long patientId) {
+
+        logger.info("Creating one Upload Session!");
+
+        String uploadId = UUID.randomUUID().toString();
+
+        try {
+            Files.createDirectories(sessionDir);
+            Files.createFile(partPath(uploadId));
+
+            Properties metadata = new Properties();
+            metadata.setProperty("fileName", fileName);
+            metadata.setProperty("totalSize", Long.toString(totalSize));
+            if (patientId != null) {
+                metadata.setProperty("patientId", patientId.toString());
+            }
+            try (Writer writer = Files.newBufferedWriter(metadataPath(uploadId), StandardCharsets.UTF_8)) {
+                metadata.store(writer, null);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao criar sessão de upload: " + e.getMessage());
+        }
+
+        return new UploadSession(uploadId, fileName, totalSize, 0);
+    }
+
+    public UploadSession status(String uploadId, Long patientId) {
+        Properties metadata = loadMetadata(uploadId, patientId);
+        return toSession(uploadId, metadata, currentOffset(uploadId));
+    }
+
+    public UploadSession append(String uploadId, long offset, InputStream body, Long patientId) {
+
+        // Dono conferido antes do lock: a sessão alheia não chega a bloquear nada
+        loadMetadata(uploadId, patientId);
+        ReentrantLock sessionLock = lockSession(uploadId);
+        try {
+            return appendLocked(uploadId, offset, body, patientId, sessionLock);
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    private UploadSession appendLocked(String uploadId, long offset, InputStream body, Long patientId,
+                                       ReentrantLock sessionLock) {
+
+        Properties metadata = loadLocked(uploadId, patientId, sessionLock);
+        long totalSize = Long.parseLong(metadata.getProperty("totalSize"));
+
+        try (FileChannel channel = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE)) {
+
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw busy();
+            }
+
+            try {
+                long position = channel.size();
+                if (offset != position) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Offset inválido: esperado " + position + ", recebido " + offset);
+                }
+
+                ReadableByteChannel source = Channels.newChannel(body);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    if (position + buffer.remaining() > totalSize) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "O pedaço enviado ultrapassa o tamanho total declarado!");
+                    }
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    buffer.clear();
+                }
+
+                // Só confirmamos o offset depois que os bytes chegaram ao disco
+                channel.force(false);
+                return toSession(uploadId, metadata, position);
+            } finally {
+                lock.release();
+            }
+
+        } catch (IOException e) {
+            // Conexão interrompida: o que já foi gravado continua valendo como offset de retomada
+            throw new RuntimeException("Erro ao gravar pedaço do upload: " + e.getMessage());
+        }
+    }
+
+    public File complete(String uploadId,
+                         Long hospitalId,
+                         Long fileTypeId,
+                         String fileDate,
+                         String description,
+                         Long patientId) {
+
+        logger.info("Completing one Upload Session!");
+
+        loadMetadata(uploadId, patientId);
+        ReentrantLock sessionLock = lockSession(uploadId);
+        try {
+            Properties metadata = loadLocked(uploadId, patientId, sessionLock);
+            long totalSize = Long.parseLong(metadata.getProperty("totalSize"));
+            long offset = currentOffset(uploadId);
+
+            if (offset != totalSize) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Upload incompleto: " + offset + " de " + totalSize + " bytes recebidos");
+            }
+
+            File file = fileServices.saveStoredFile(partPath(uploadId), metadata.getProperty("fileName"),
+                    hospitalId, fileTypeId, fileDate, description);
+
+            deleteQuietly(metadataPath(uploadId));
+            sessionLocks.remove(validId(uploadId), sessionLock);
+            return file;
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    public void abort(String uploadId, Long patientId) {
+
+        logger.info("Aborting one Upload Session!");
+
+        loadMetadata(uploadId, patientId);
+        ReentrantLock sessionLock = lockSession(uploadId);
+        try {
+            loadLocked(uploadId, patientId, sessionLock);
+            deleteSession(uploadId);
+            sessionLocks.remove(validId(uploadId), sessionLock);
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    // Apaga as sessões abandonadas (nenhum envio há mais de session-ttl-hours), inclusive os
+    // ".part" que sobraram sem metadados. Sessões com um envio em andamento ficam para a próxima
+    @Scheduled(fixedDelayString = "${gestcare.upload.session-cleanup-ms:3600000}")
+    public void expireSessions() {
+        if (!Files.isDirectory(sessionDir)) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(Duration.ofHours(sessionTtlHours));
+        Set<String> uploadIds = new HashSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(sessionDir, "*.{part,properties}")) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                uploadIds.add(name.substring(0, name.lastIndexOf('.')));
+            }
+        } catch (IOException e) {
+            logger.warning("Could not list upload sessions: " + e.getMessage());
+            return;
+        }
+
+        int expired = 0;
+        for (String uploadId : uploadIds) {
+            try {
+                validId(uploadId);
+            } catch (ResourceNotFoundException e) {
+                continue;
+            }
+
+            ReentrantLock sessionLock = sessionLocks.computeIfAbsent(uploadId, id -> new ReentrantLock());
+            if (!sessionLock.tryLock()) {
+                continue;
+            }
+            try {
+                if (lastActivity(uploadId).isBefore(cutoff)) {
+                    deleteSession(uploadId);
+                    sessionLocks.remove(validId(uploadId), sessionLock);
+                    expired++;
+                }
+            } finally {
+                sessionLock.unlock();
+            }
+        }
+
+        if (expired > 0) {
+            logger.info("Expired " + expired + " abandoned upload sessions.");
+        }
+    }
+
+    private ReentrantLock lockSession(String uploadId) {
+        ReentrantLock sessionLock = sessionLocks.computeIfAbsent(validId(uploadId), id -> new ReentrantLock());
+        if (!sessionLock.tryLock()) {
+            throw busy();
+        }
+        return sessionLock;
+    }
+
+    private ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Já existe um envio em andamento para esta sessão de upload!");
+    }
+
+    // Último envio: o ".part" muda a cada pedaço; sem ele, a criação dos metadados
+    private Instant lastActivity(String uploadId) {
+        Instant last = Instant.EPOCH;
+        for (Path path : List.of(partPath(uploadId), metadataPath(uploadId))) {
+            try {
+                Instant modified = Files.getLastModifiedTime(path).toInstant();
+                last = modified.isAfter(last) ? modified : last;
+            } catch (IOException e) {
+                // Um dos dois arquivos pode não existir
+            }
+        }
+        return last;
+    }
+
+    private void deleteSession(String uploadId) {
+        deleteQuietly(partPath(uploadId));
+        deleteQuietly(metadataPath(uploadId));
+    }
+
+    // Confere a sessão de novo já com o lock: ela pode ter sido concluída, cancelada ou expirada
+    // entre a primeira conferência e o lock. Se não existe mais, o lock sai do mapa junto
+    // (ninguém mais o removeria); sessão de outro paciente continua existindo e fica
+    private Properties loadLocked(String uploadId, Long patientId, ReentrantLock sessionLock) {
+        try {
+            return loadMetadata(uploadId, patientId);
+        } catch (ResourceNotFoundException e) {
+            if (!Files.exists(metadataPath(uploadId))) {
+                sessionLocks.remove(validId(uploadId), sessionLock);
+            }
+            throw e;
+        }
+    }
+
+    private Properties loadMetadata(String uploadId, Long patientId) {
+        Path metadataPath = metadataPath(uploadId);
+        if (!Files.exists(metadataPath)) {
+            throw new ResourceNotFoundException("No upload session found for this ID!");
+        }
+
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataPath, StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler sessão de upload: " + e.getMessage());
+        }
+        if (patientId != null && !patientId.toString().equals(metadata.getProperty("patientId"))) {
+            throw new ResourceNotFoundException("No upload session found for this ID!");
+        }
+        return metadata;
+    }
+
+    private long currentOffset(String uploadId) {
+        try {
+            return Files.size(partPath(uploadId));
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("No upload session found for this ID!");
+        }
+    }
+
+    private UploadSession toSession(String uploadId, Properties metadata, long offset) {
+        return new UploadSession(
+                uploadId,
+                metadata.getProperty("fileName"),
+                Long.parseLong(metadata.getProperty("totalSize")),
+                offset
+        );
+    }
+
+    private Path partPath(String uploadId) {
+        return sessionDir.resolve(validId(uploadId) + ".part");
+    }
+
+    private Path metadataPath(String uploadId) {
+        return sessionDir.resolve(validId(uploadId) + ".properties");
+    }
+
+    // O id vem da URL: aceitamos apenas UUIDs para não permitir "../" no caminho
+    private String validId(String uploadId) {
+        try {
+            return UUID.fromString(uploadId).toString();
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("No upload session found for this ID!");
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warning("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+}
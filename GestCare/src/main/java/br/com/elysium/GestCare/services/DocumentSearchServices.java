@@ -0,0 +1,515 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.DocumentSearchHit;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.SearchIndexJob;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.SearchIndexJobRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.pt.PortugueseAnalyzer;
+import org.apache.lucene.analysis.pt.PortugueseLightStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Índice textual (Lucene, em disco) dos documentos: título, nome do arquivo, tipo,
+ * descrição e o texto extraído de PDFs e arquivos de texto.
+ *
+ * O índice é alimentado pelo FileStoredEvent/FileDeletedEvent (e PatientDeletedEvent); a
+ * extração de texto roda num pool pequeno, fora da requisição de upload. Termos são
+ * normalizados sem acento ("ecocardiografico" encontra "Ecocardiográfico") e com stemming
+ * leve em português.
+ *
+ * Cada alteração vira uma linha em search_index_job, que só sai da tabela depois do commit
+ * do Lucene que a contém: fila em memória cheia ou queda antes do commit periódico não perdem
+ * nada (o pollPending() e a subida retomam o que ficou). Na subida, depois de reaplicar os
+ * pendentes, o número de documentos do índice é conferido com a tabela file; se divergir (ou
+ * o analisador tiver mudado) o índice é reconstruído. Por isso ele pode ser apagado a qualquer
+ * momento.
+ */
+@Service
+public class DocumentSearchServices {
+
+    private static final int MAX_RESULTS = 100;
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PDF_PAGES = 100;
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "csv", "xml", "json", "hl7", "md");
+    private static final Set<SearchIndexJob.Target> TARGETS =
+            EnumSet.of(SearchIndexJob.Target.FILE, SearchIndexJob.Target.PATIENT_FILES);
+
+    // Gravado no commit do índice: outra versão do analisador exige reindexar tudo
+    private static final String ANALYZER_KEY = "analyzer";
+    private static final String ANALYZER_VERSION = "2";
+
+    // Onde o termo aparece pesa na relevância
+    private static final Map<String, Float> SEARCH_FIELDS = Map.of(
+            "title", 3f,
+            "fileType", 2f,
+            "description", 2f,
+            "fileName", 1f,
+            "content", 1f);
+
+    private Logger logger = Logger.getLogger(DocumentSearchServices.class.getName());
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private SearchIndexJobRepository jobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gestcare.search.index-dir:./search-index}")
+    private String indexDir;
+
+    @Value("${gestcare.search.workers:1}")
+    private int workers;
+
+    @Value("${gestcare.search.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // Limite do texto extraído por documento (laudos longos não precisam ser indexados inteiros)
+    @Value("${gestcare.search.max-extracted-chars:200000}")
+    private int maxExtractedChars;
+
+    private final Analyzer analyzer = new FoldingPortugueseAnalyzer();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate requiresNew;
+    private boolean analyzerChanged;
+
+    // Jobs na fila em memória ou já aplicados ao índice, ainda não apagados da tabela
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+    // Jobs aplicados que esperam o próximo commit para sair da tabela
+    private final Queue<Long> applied = new ConcurrentLinkedQueue<>();
+    // Marca os documentos gravados desde a última reconstrução (os demais são apagados no fim dela)
+    private volatile String generation = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = FSDirectory.open(Files.createDirectories(Path.of(indexDir)));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        analyzerChanged = !ANALYZER_VERSION.equals(commitData().get(ANALYZER_KEY));
+        writer.setLiveCommitData(Map.of(ANALYZER_KEY, ANALYZER_VERSION).entrySet());
+        searcherManager = new SearcherManager(writer, new SearcherFactory());
+
+        // Os listeners rodam depois do commit da transação do evento: o job precisa de uma transação própria
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-index-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // Subida: reaplica o que ficou pendente e confere o índice com a tabela file, em segundo plano
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        Thread reconcile = new Thread(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                logger.warning("Could not reconcile the search index: " + e.getMessage());
+            }
+        }, "search-index-reconcile");
+        reconcile.setDaemon(true);
+        reconcile.setPriority(Thread.MIN_PRIORITY);
+        reconcile.start();
+    }
+
+    public void reconcile() throws IOException {
+        int replayed = 0;
+        for (SearchIndexJob job : pendingJobs()) {
+            if (claimed.add(job.getId())) {
+                run(job);
+                replayed++;
+            }
+        }
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " pending search index jobs!");
+        }
+        // Deleções ainda em memória não entram na contagem do writer
+        commit();
+
+        long indexed = writer.getDocStats().numDocs;
+        long expected = transactionTemplate.execute(status -> fileRepository.countIndexable());
+        if (analyzerChanged || indexed != expected) {
+            logger.info("Search index has " + indexed + " documents, the file table " + expected + ".");
+            rebuild();
+            analyzerChanged = false;
+            commit();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        enqueue(SearchIndexJob.Target.FILE, event.fileId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileDeleted(FileDeletedEvent event) {
+        enqueue(SearchIndexJob.Target.FILE, event.fileId());
+    }
+
+    // Paciente excluído (soft delete): os documentos dele saem da busca já, sem esperar o purge
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        enqueue(SearchIndexJob.Target.PATIENT_FILES, event.patientId());
+    }
+
+    // Retoma os jobs que não couberam na fila em memória ou falharam
+    @Scheduled(fixedDelayString = "${gestcare.search.poll-interval-ms:30000}")
+    public void pollPending() {
+        for (SearchIndexJob job : pendingJobs()) {
+            if (!claimed.contains(job.getId()) && !submit(job)) {
+                return;
+            }
+        }
+    }
+
+    // Documentos novos aparecem na busca em até um segundo
+    @Scheduled(fixedDelay = 1000)
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    // Só os jobs aplicados antes do commit saem da tabela; os demais esperam o próximo
+    @Scheduled(fixedDelayString = "${gestcare.search.commit-interval-ms:30000}")
+    public synchronized void commit() throws IOException {
+        List<Long> done = new ArrayList<>();
+        for (Long id = applied.poll(); id != null; id = applied.poll()) {
+            done.add(id);
+        }
+
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+        if (done.isEmpty()) {
+            return;
+        }
+        try {
+            jobRepository.deleteAllByIdInBatch(done);
+            done.forEach(claimed::remove);
+        } catch (RuntimeException e) {
+            applied.addAll(done);
+            logger.warning("Could not remove " + done.size() + " search index jobs: " + e.getMessage());
+        }
+    }
+
+    public List<DocumentSearchHit> search(Long patientId, String text, int limit) throws IOException {
+        Query textQuery = new SimpleQueryParser(analyzer, SEARCH_FIELDS).parse(text);
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("patientId", String.valueOf(patientId))), BooleanClause.Occur.FILTER)
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .build();
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query, Math.max(1, Math.min(limit, MAX_RESULTS)));
+            List<DocumentSearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document document = searcher.storedFields().document(scoreDoc.doc);
+                String fileDate = document.get("fileDate");
+                hits.add(new DocumentSearchHit(
+                        Long.valueOf(document.get("id")),
+                        document.get("title"),
+                        document.get("fileName"),
+                        document.get("fileType"),
+                        fileDate != null ? LocalDate.parse(fileDate) : null,
+                        scoreDoc.score));
+            }
+            return hits;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private void enqueue(SearchIndexJob.Target target, Long targetId) {
+        submit(requiresNew.execute(status -> jobRepository.save(new SearchIndexJob(target, targetId))));
+    }
+
+    private boolean submit(SearchIndexJob job) {
+        if (!claimed.add(job.getId())) {
+            return true;
+        }
+        try {
+            executor.execute(() -> run(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Fila cheia: o job continua na tabela e será retomado no próximo poll
+            claimed.remove(job.getId());
+            return false;
+        }
+    }
+
+    private void run(SearchIndexJob job) {
+        try {
+            apply(job);
+            applied.add(job.getId());
+        } catch (Exception e) {
+            logger.warning("Could not apply search index job " + job.getId() + ": " + e.getMessage());
+            claimed.remove(job.getId());
+        }
+    }
+
+    // Idempotente: o documento é relido do banco, então repetir um job (na subida) não faz mal
+    private void apply(SearchIndexJob job) throws IOException {
+        switch (job.getTarget()) {
+            case FILE -> {
+                // Lido numa transação de escrita para cair no primário: uma réplica atrasada
+                // ainda não teria o documento recém-enviado
+                Optional<File> file = transactionTemplate.execute(status -> fileRepository.findIndexableById(job.getTargetId()));
+                if (file.isPresent()) {
+                    index(file.get());
+                } else {
+                    writer.deleteDocuments(new Term("id", String.valueOf(job.getTargetId())));
+                }
+            }
+            case PATIENT_FILES -> writer.deleteDocuments(new Term("patientId", String.valueOf(job.getTargetId())));
+        }
+    }
+
+    // Pendentes deste índice, em páginas por id (lidos no primário, onde acabaram de ser gravados)
+    private List<SearchIndexJob> pendingJobs() {
+        List<SearchIndexJob> pending = new ArrayList<>();
+        List<SearchIndexJob> page = transactionTemplate.execute(status ->
+                jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(TARGETS, 0L, Limit.of(PAGE_SIZE)));
+        while (!page.isEmpty()) {
+            pending.addAll(page);
+            long after = page.get(page.size() - 1).getId();
+            page = transactionTemplate.execute(status ->
+                    jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(TARGETS, after, Limit.of(PAGE_SIZE)));
+        }
+        return pending;
+    }
+
+    // Reindexa tudo sem esvaziar o índice antes: a busca continua respondendo durante a
+    // reconstrução, e no fim saem os documentos que não foram regravados (não existem mais)
+    private void rebuild() throws IOException {
+        logger.info("Rebuilding the search index!");
+        String current = UUID.randomUUID().toString();
+        generation = current;
+
+        int indexed = 0;
+        List<File> page = transactionTemplate.execute(status -> fileRepository.findIndexablePage(0L, Limit.of(PAGE_SIZE)));
+        while (!page.isEmpty()) {
+            for (File file : page) {
+                index(file);
+                indexed++;
+            }
+            long after = page.get(page.size() - 1).getId();
+            page = transactionTemplate.execute(status -> fileRepository.findIndexablePage(after, Limit.of(PAGE_SIZE)));
+        }
+
+        writer.deleteDocuments(new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term("generation", current)), BooleanClause.Occur.MUST_NOT)
+                .build());
+        searcherManager.maybeRefresh();
+        logger.info("Search index rebuilt: " + indexed + " documents.");
+    }
+
+    private void index(File file) throws IOException {
+        Document document = new Document();
+        document.add(new StringField("id", String.valueOf(file.getId()), Field.Store.YES));
+        document.add(new StringField("patientId", String.valueOf(file.getHospital().getPatient().getId()), Field.Store.NO));
+        document.add(new StringField("generation", generation, Field.Store.NO));
+        addText(document, "title", file.getTitle(), Field.Store.YES);
+        addText(document, "fileName", file.getFileName(), Field.Store.YES);
+        addText(document, "fileType", file.getFileType() != null ? file.getFileType().getName() : null, Field.Store.YES);
+        addText(document, "description", file.getDescription(), Field.Store.NO);
+        if (file.getFileDate() != null) {
+            document.add(new StoredField("fileDate", file.getFileDate().toString()));
+        }
+
+        // Conteúdo ilegível (PDF corrompido, conteúdo ausente) não impede indexar os metadados
+        try {
+            String content = extractText(file);
+            if (content != null && !content.isBlank()) {
+                document.add(new TextField("content", content, Field.Store.NO));
+            }
+        } catch (Exception e) {
+            logger.warning("Could not extract the text of File " + file.getId() + ": " + e.getMessage());
+        }
+
+        writer.updateDocument(new Term("id", String.valueOf(file.getId())), document);
+    }
+
+    private void addText(Document document, String field, String value, Field.Store store) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(field, value, store));
+        }
+    }
+
+    private String extractText(File file) throws IOException {
+        String extension = extension(file.getFileName());
+        if (file.getContentHash() == null || (!extension.equals("pdf") && !TEXT_EXTENSIONS.contains(extension))) {
+            return null;
+        }
+
+        String key = ContentCodec.key(file.getContentHash(), file.getContentEncoding());
+        if (!extension.equals("pdf")) {
+            try (InputStream in = ContentCodec.decode(storage.open(key), file.getContentEncoding())) {
+                return new String(in.readNBytes(maxExtractedChars), StandardCharsets.UTF_8);
+            }
+        }
+
+        // O PDFBox precisa de acesso aleatório: o PDF vai para um arquivo temporário, não para a heap
+        Path source = Files.createTempFile("search-src-", ".pdf");
+        try {
+            try (InputStream in = ContentCodec.decode(storage.open(key), file.getContentEncoding())) {
+                Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (PDDocument pdf = Loader.loadPDF(source.toFile())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                stripper.setEndPage(MAX_PDF_PAGES);
+                String text = stripper.getText(pdf);
+                return text.length() > maxExtractedChars ? text.substring(0, maxExtractedChars) : text;
+            }
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private String extension(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase() : "";
+    }
+
+    private Map<String, String> commitData() throws IOException {
+        Map<String, String> data = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(entry -> data.put(entry.getKey(), entry.getValue()));
+        }
+        return data;
+    }
+
+    // Minúsculas, sem acentos (João = joao), sem stopwords e com stemming leve do português.
+    // Os acentos saem antes do stemming: "internações" e "internacoes" passam pelas mesmas
+    // regras e geram o mesmo termo, no índice e na consulta.
+    static final class FoldingPortugueseAnalyzer extends Analyzer {
+
+        private static final CharArraySet STOP_WORDS = foldedStopWords();
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer source = new StandardTokenizer();
+            TokenStream stream = new LowerCaseFilter(source);
+            stream = new ASCIIFoldingFilter(stream);
+            stream = new StopFilter(stream, STOP_WORDS);
+            stream = new PortugueseLightStemFilter(stream);
+            return new TokenStreamComponents(source, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+
+        // As stopwords do português têm acento ("não", "às"): sem ele, para casar com os termos já dobrados
+        private static CharArraySet foldedStopWords() {
+            CharArraySet folded = new CharArraySet(PortugueseAnalyzer.getDefaultStopSet().size(), false);
+            for (Object word : PortugueseAnalyzer.getDefaultStopSet()) {
+                char[] chars = (char[]) word;
+                char[] output = new char[chars.length * 4];
+                int length = ASCIIFoldingFilter.foldToASCII(chars, 0, output, 0, chars.length);
+                folded.add(new String(output, 0, length));
+            }
+            return folded;
+        }
+    }
+}
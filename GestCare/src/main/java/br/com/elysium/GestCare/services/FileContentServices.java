@@ -0,0 +1,319 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Entrega o conteúdo de um File com suporte a HTTP Range (um ou vários intervalos),
+ * ETag forte derivada do hash do conteúdo e GET condicional (If-None-Match / If-Range).
+ *
+ * Com o armazenamento local os bytes vão do disco para o socket sem passar pela heap:
+ * via sendfile do Tomcat quando disponível, senão via FileChannel.transferTo.
+ *
+ * Conteúdo gravado comprimido (gzip) é enviado como está para clientes que aceitam
+ * "Content-Encoding: gzip"; para os demais (ou em requisições Range) é descomprimido
+ * em streaming.
+ */
+@Service
+public class FileContentServices {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // O conteúdo de um File nunca muda (é endereçado pelo hash), então o navegador pode guardá-lo
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    public void serve(Long id, Long patientId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        File file = fileRepository.findByIdAndPatientId(id, patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+
+        StoredContent content = resolve(file);
+
+        // Representação comprimida enviada direto: mesmo conteúdo, mas outra ETag
+        boolean passThrough = content.encoding() != null
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && acceptsEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING), content.encoding());
+        String etag = "\"" + content.tag() + (passThrough ? "-" + content.encoding() : "") + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (content.encoding() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(file.getFileName(), StandardCharsets.UTF_8)
+                .build().toString());
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (passThrough) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, content.encoding());
+            response.setContentLengthLong(content.storedLength());
+            if (!head) {
+                writeStored(content, 0, content.storedLength(), request, response, true);
+            }
+            return;
+        }
+
+        long length = content.length();
+        List<HttpRange> ranges;
+        try {
+            ranges = satisfiable(requestedRanges(request, etag), length);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(length);
+            if (!head) {
+                write(content, 0, length, request, response, true);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(end - start + 1);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            if (!head) {
+                write(content, start, end - start + 1, request, response, true);
+            }
+            return;
+        }
+
+        // Vários intervalos: multipart/byteranges (RFC 9110, seção 14.6)
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (head) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + mediaType + "\r\n"
+                    + "Content-Range: bytes " + start + "-" + end + "/" + length + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.ISO_8859_1));
+            write(content, start, end - start + 1, request, response, false);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return List.of();
+        }
+
+        // If-Range com ETag diferente: o cliente tem uma versão antiga, envia o conteúdo inteiro
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return List.of();
+        }
+
+        return HttpRange.parseRanges(rangeHeader);
+    }
+
+    // Intervalos que começam depois do fim (ou sufixo "-0") são ignorados; 416 só se nenhum sobrar
+    private List<HttpRange> satisfiable(List<HttpRange> ranges, long length) {
+        List<HttpRange> satisfiable = ranges.stream()
+                .filter(range -> range.getRangeStart(length) < length
+                        && range.getRangeStart(length) <= range.getRangeEnd(length))
+                .toList();
+        if (satisfiable.isEmpty() && !ranges.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range for length " + length);
+        }
+        return satisfiable;
+    }
+
+    private void write(StoredContent content,
+                       long start,
+                       long count,
+                       HttpServletRequest request,
+                       HttpServletResponse response,
+                       boolean allowSendfile) throws IOException {
+
+        if (content.encoding() == null) {
+            writeStored(content, start, count, request, response, allowSendfile);
+            return;
+        }
+
+        // Descompressão em streaming: só o intervalo pedido é copiado para a resposta
+        try (InputStream in = ContentCodec.decode(openStored(content), content.encoding())) {
+            in.skipNBytes(start);
+            copy(in, response.getOutputStream(), count);
+        }
+    }
+
+    // Envia os bytes exatamente como estão no armazenamento
+    private void writeStored(StoredContent content,
+                             long start,
+                             long count,
+                             HttpServletRequest request,
+                             HttpServletResponse response,
+                             boolean allowSendfile) throws IOException {
+
+        if (content.localPath() == null) {
+            try (InputStream in = storage.openRange(content.key(), start, count)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        // O Tomcat envia o arquivo com sendfile depois que o controller retorna
+        if (allowSendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, content.localPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(content.localPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private InputStream openStored(StoredContent content) throws IOException {
+        return content.localPath() != null
+                ? Files.newInputStream(content.localPath())
+                : storage.open(content.key());
+    }
+
+    private void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private StoredContent resolve(File file) throws IOException {
+        String hash = file.getContentHash();
+
+        if (hash == null) {
+            // Registro anterior ao armazenamento por hash (ainda não migrado)
+            Path legacy = Path.of(file.getFilePath());
+            if (!Files.exists(legacy)) {
+                throw new ResourceNotFoundException("Stored content not found for this ID!");
+            }
+            long size = Files.size(legacy);
+            return new StoredContent("legacy-" + file.getId() + "-" + size, size, size, null, null, legacy);
+        }
+
+        String key = ContentCodec.key(hash, file.getContentEncoding());
+        long storedSize = file.getStoredSize() != null ? file.getStoredSize() : storage.size(key);
+        long size = file.getFileSize() != null ? file.getFileSize() : storedSize;
+        Path localPath = storage instanceof LocalStorageBackend local ? local.resolve(key) : null;
+        return new StoredContent(hash, size, storedSize, file.getContentEncoding(), key, localPath);
+    }
+
+    private boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // length é o tamanho original; storedLength, o tamanho dos bytes no armazenamento
+    private record StoredContent(String tag,
+                                 long length,
+                                 long storedLength,
+                                 String encoding,
+                                 String key,
+                                 Path localPath) {
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.elysium.GestCare.services;
+
+// Publicado pelo FileServices depois que um File é removido do banco
+public record FileDeletedEvent(
+        Long fileId
+) {
+}
@@ -1,37 +1,137 @@
 package br.com.elysium.GestCare.services;
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.dto.BatchUploadItem;
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.FileListItem;
+import br.com.elysium.GestCare.dto.StoredFileRow;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
 import br.com.elysium.GestCare.model.File;
 import br.com.elysium.GestCare.model.FileType;
 import br.com.elysium.GestCare.model.Hospital;
-import br.com.elysium.GestCare.model.Patient;
 import br.com.elysium.GestCare.repositories.FileRepository;
-import br.com.elysium.GestCare.repositories.FileTypeRepository;
-import br.com.elysium.GestCare.repositories.HospitalRepository;
-import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.repositories.PreviewJobRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class FileServices {
 
-    @Autowired
-    private PatientRepository patientRepository;
+    // Locks por hash (em faixas) para que gravar/liberar o mesmo conteúdo
+    // nunca aconteça ao mesmo tempo: sem isso um delete poderia apagar o
+    // arquivo que um upload idêntico acabou de reaproveitar.
+    private static final int LOCK_STRIPES = 64;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReentrantLock[] contentLocks = new ReentrantLock[LOCK_STRIPES];
+
+    private Logger logger = Logger.getLogger(FileServices.class.getName());
 
     @Autowired
     private FileRepository fileRepository;
 
-    public List<File> getFilesByPatient(Long patientId) {
-        return fileRepository.findFilesByPatientId(patientId);
+    public FileServices() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            contentLocks[i] = new ReentrantLock();
+        }
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<FileListItem> getFilesByPatient(Long patientId, String cursor, int size) {
+        int pageSize = CursorPage.size(size, maxPageSize);
+        FileCursor after = CursorPage.decode(cursor,
+                parts -> new FileCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1])));
+
+        List<FileListItem> rows = after == null
+                ? fileRepository.findFirstPageByPatientId(patientId, Limit.of(pageSize + 1))
+                : fileRepository.findPageByPatientIdAfter(patientId, after.fileDate(), after.id(), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, file -> file.fileDate() + "|" + file.id());
+    }
+
+    @Autowired
+    private ReferenceDataServices referenceDataServices;
+
+    @Value("${gestcare.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PreviewJobRepository previewJobRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Compressão em repouso (opcional) para tipos que comprimem bem: laudos em texto, XML/HL7, TIFF
+    @Value("${gestcare.storage.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${gestcare.storage.compression.types:text/*,application/xml,application/json,application/hl7-v2,image/tiff,image/bmp}")
+    private String compressibleTypes;
+
     @Autowired
-    private HospitalRepository hospitalRepository;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    private FileTypeRepository fileTypeRepository;
+    private WorkerThreads workerThreads;
+
+    // Quantos arquivos de um lote são gravados em paralelo
+    @Value("${gestcare.upload.batch-parallelism:4}")
+    private int batchParallelism;
+
+    @Value("${gestcare.upload.batch-max-files:100}")
+    private int batchMaxFiles;
+
+    private ExecutorService batchExecutor;
+
+    @PostConstruct
+    public void start() {
+        batchExecutor = Executors.newFixedThreadPool(batchParallelism, workerThreads.ioBound("batch-upload"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        batchExecutor.shutdownNow();
+    }
 
     public File saveFile(MultipartFile multipartFile,
                          Long hospitalId,
@@ -39,54 +139,461 @@ public class FileServices {
                          String fileDate,
                          String description) {
 
+        // Ids inválidos falham aqui, antes de qualquer byte ir para o disco
+        References references = resolveReferences(hospitalId, fileTypeId, fileDate);
+
+        Path staged = null;
         try {
-            String uploadDir = System.getProperty("user.dir") + "/uploads/";
+            String fileName = sanitizeFileName(multipartFile.getOriginalFilename());
 
-            java.io.File dir = new java.io.File(uploadDir);
-            if (!dir.exists()) {
-                dir.mkdirs();
+            // Hash (e compressão, se for o caso) calculados enquanto os bytes são copiados, numa única passada
+            staged = Files.createTempFile(stagingDir(), "stage-", ".tmp");
+            StoredContent content;
+            try (InputStream in = multipartFile.getInputStream()) {
+                content = stage(in, staged, compressible(fileName));
             }
 
-            String originalName = multipartFile.getOriginalFilename();
+            return storeAndPersist(staged, content, fileName, references, description);
 
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao salvar arquivo: " + e.getMessage());
+        } finally {
+            deleteQuietly(staged);
+        }
+    }
 
-            String fileName = originalName
-                    .replaceAll("\\s+", "_")
-                    .replaceAll("[^a-zA-Z0-9._-]", "");
+    // Usado pelo upload em partes: o conteúdo já está inteiro em disco (source),
+    // então só falta calcular o hash e movê-lo para o armazenamento.
+    public File saveStoredFile(Path source,
+                               String originalName,
+                               Long hospitalId,
+                               Long fileTypeId,
+                               String fileDate,
+                               String description) {
 
+        References references = resolveReferences(hospitalId, fileTypeId, fileDate);
 
-            String filePath = uploadDir + fileName;
+        Path staged = null;
+        try {
+            String fileName = sanitizeFileName(originalName);
 
+            StoredContent content;
+            Path toStore = source;
+            if (compressible(fileName)) {
+                staged = Files.createTempFile(stagingDir(), "stage-", ".tmp");
+                try (InputStream in = Files.newInputStream(source)) {
+                    content = stage(in, staged, true);
+                }
+                toStore = staged;
+            } else {
+                try (InputStream in = Files.newInputStream(source)) {
+                    content = stage(in, null, false);
+                }
+            }
 
-            multipartFile.transferTo(new java.io.File(filePath));
+            File file = storeAndPersist(toStore, content, fileName, references, description);
 
+            // Se o conteúdo já existia o source não foi movido; em caso de erro ele
+            // fica em disco para que o "complete" possa ser repetido sem reenviar nada
+            deleteQuietly(source);
+            return file;
 
-            Hospital hospital = hospitalRepository.findById(hospitalId)
-                    .orElseThrow(() -> new RuntimeException("ERRO: Hospital ID " + hospitalId + " não existe!"));
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao salvar arquivo: " + e.getMessage());
+        } finally {
+            deleteQuietly(staged);
+        }
+    }
 
-            FileType fileType = fileTypeRepository.findById(fileTypeId)
-                    .orElseThrow(() -> new RuntimeException("ERRO: FileType ID " + fileTypeId + " não existe!"));
+    // O cliente já conhece o hash de um conteúdo armazenado: nenhum byte é enviado nem gravado.
+    // Com paciente (token), só vale um conteúdo que ele mesmo já enviou: conhecer o hash de um
+    // documento de outro paciente não pode bastar para anexá-lo e depois baixá-lo
+    public File saveKnownFile(String contentHash,
+                              String originalName,
+                              Long hospitalId,
+                              Long fileTypeId,
+                              String fileDate,
+                              String description,
+                              Long patientId) {
 
-            Patient patient = patientRepository.findById(1L)
-                    .orElseThrow(() -> new RuntimeException("ERRO: Paciente ID 1 não existe no banco!"));
+        String hash = validHash(contentHash);
+        References references = resolveReferences(hospitalId, fileTypeId, fileDate);
 
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            StoredFileRow existing = (patientId == null
+                    ? fileRepository.findStoredByContentHash(hash, Limit.of(1))
+                    : fileRepository.findStoredByContentHashAndPatientId(hash, patientId, Limit.of(1)))
+                    .stream().findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("No stored content found for this hash!"));
 
-            File file = new File();
-            file.setTitle(fileName);
-            file.setFileName(fileName);
-            file.setFilePath(filePath);
-            file.setDescription(description);
-            file.setFileDate(LocalDate.parse(fileDate));
-            file.setHospital(hospital);
-            file.setFileType(fileType);
+            return persistFile(sanitizeFileName(originalName), existing.filePath(), storedContentOf(existing),
+                    references, description);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            file.setDoctorName("Dr. Teste");
-            file.setDoctorCrm("123456");
+    // Upload de vários documentos numa única requisição: referências resolvidas uma vez,
+    // arquivos gravados em paralelo e todas as linhas inseridas em um batch JDBC
+    public List<BatchUploadItem> saveBatch(List<MultipartFile> multipartFiles,
+                                           List<String> descriptions,
+                                           Long hospitalId,
+                                           Long fileTypeId,
+                                           String fileDate,
+                                           String description) {
 
-            return fileRepository.save(file);
+        if (multipartFiles.isEmpty() || multipartFiles.size() > batchMaxFiles) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "O lote deve ter entre 1 e " + batchMaxFiles + " arquivos!");
+        }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao salvar arquivo: " + e.getMessage());
+        References references = resolveReferences(hospitalId, fileTypeId, fileDate);
+
+        int count = multipartFiles.size();
+        String[] names = new String[count];
+        Path[] staged = new Path[count];
+        StoredContent[] contents = new StoredContent[count];
+        BatchUploadItem[] results = new BatchUploadItem[count];
+
+        try {
+            // 1) Hash/compressão de cada arquivo em paralelo, no pool limitado
+            List<CompletableFuture<Void>> stagings = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                MultipartFile multipartFile = multipartFiles.get(i);
+                names[i] = multipartFile.getOriginalFilename() == null
+                        ? "arquivo-" + (i + 1)
+                        : sanitizeFileName(multipartFile.getOriginalFilename());
+
+                stagings.add(CompletableFuture.runAsync(() -> {
+                    try (InputStream in = multipartFile.getInputStream()) {
+                        staged[index] = Files.createTempFile(stagingDir(), "stage-", ".tmp");
+                        contents[index] = stage(in, staged[index], compressible(names[index]));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, batchExecutor).exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    results[index] = new BatchUploadItem(index, names[index], null, null,
+                            "Erro ao salvar arquivo: " + cause.getMessage());
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(stagings.toArray(new CompletableFuture[0])).join();
+
+            // 2) Locks de todos os hashes do lote, sempre na mesma ordem (sem deadlock entre lotes)
+            TreeSet<Integer> stripes = new TreeSet<>();
+            for (int i = 0; i < count; i++) {
+                if (results[i] == null) {
+                    stripes.add(stripeOf(contents[i].hash()));
+                }
+            }
+            for (int stripe : stripes) {
+                contentLocks[stripe].lock();
+            }
+
+            try {
+                // 3) Conteúdos para o armazenamento; repetidos no próprio lote são gravados uma vez só
+                Map<String, StoredRef> refs = new HashMap<>();
+                List<File> rows = new ArrayList<>();
+                List<Integer> rowIndexes = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    if (results[i] != null) {
+                        continue;
+                    }
+                    try {
+                        StoredRef ref = refs.get(contents[i].hash());
+                        if (ref == null) {
+                            ref = storeContent(staged[i], contents[i]);
+                            refs.put(contents[i].hash(), ref);
+                        }
+                        String itemDescription = descriptions != null && i < descriptions.size()
+                                ? descriptions.get(i)
+                                : description;
+                        rows.add(newFile(names[i], ref.filePath(), ref.content(), references, itemDescription));
+                        rowIndexes.add(i);
+                    } catch (IOException e) {
+                        results[i] = new BatchUploadItem(i, names[i], null, null,
+                                "Erro ao salvar arquivo: " + e.getMessage());
+                    }
+                }
+
+                // 4) Todas as linhas numa única transação
+                try {
+                    transactionTemplate.executeWithoutResult(status -> fileRepository.insertAll(rows));
+                } catch (RuntimeException e) {
+                    // Nada foi gravado no banco: os bytes recém-armazenados ficariam órfãos
+                    for (StoredRef ref : refs.values()) {
+                        if (ref.created()) {
+                            deleteStoredQuietly(ContentCodec.key(ref.content().hash(), ref.content().encoding()));
+                        }
+                    }
+                    throw new RuntimeException("Erro ao salvar arquivos: " + e.getMessage());
+                }
+
+                for (int r = 0; r < rows.size(); r++) {
+                    File row = rows.get(r);
+                    int index = rowIndexes.get(r);
+                    results[index] = new BatchUploadItem(index, row.getFileName(), row.getId(), row.getContentHash(), null);
+                    eventPublisher.publishEvent(new FileStoredEvent(row.getId(), row.getContentHash(), row.getFileName()));
+                }
+            } finally {
+                for (int stripe : stripes.descendingSet()) {
+                    contentLocks[stripe].unlock();
+                }
+            }
+        } finally {
+            for (Path path : staged) {
+                deleteQuietly(path);
+            }
+        }
+
+        return List.of(results);
+    }
+
+    // Com paciente, só entre os documentos dele (não revela o que outros pacientes enviaram)
+    public boolean contentExists(String contentHash, Long patientId) {
+        String hash = validHash(contentHash);
+        return patientId == null
+                ? fileRepository.existsByContentHash(hash)
+                : fileRepository.existsByContentHashAndPatientId(hash, patientId);
+    }
+
+    public void deleteFile(Long id, Long patientId) {
+
+        logger.info("Deleting one File!");
+
+        File file = fileRepository.findByIdAndPatientId(id, patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+
+        String hash = file.getContentHash();
+        ReentrantLock lock = lockFor(hash != null ? hash : file.getFilePath());
+        lock.lock();
+        try {
+            fileRepository.delete(file);
+            releaseContent(file);
+        } finally {
+            lock.unlock();
+        }
+
+        eventPublisher.publishEvent(new FileDeletedEvent(id));
+    }
+
+    // Os bytes só saem do armazenamento quando o último registro que os referencia é removido.
+    // Deve ser chamado com o lock do conteúdo em mãos, depois que o registro saiu do banco
+    void releaseContent(File file) {
+        String hash = file.getContentHash();
+        try {
+            if (hash != null) {
+                if (fileRepository.countByContentHash(hash) == 0) {
+                    storage.delete(ContentCodec.key(hash, file.getContentEncoding()));
+                    storage.delete(PreviewServices.previewKey(hash));
+                    previewJobRepository.deleteByContentHash(hash);
+                }
+            } else if (fileRepository.countByFilePath(file.getFilePath()) == 0) {
+                // Registro antigo, anterior ao armazenamento por hash (ainda não migrado)
+                deleteQuietly(Path.of(file.getFilePath()));
+            }
+        } catch (IOException e) {
+            logger.warning("Could not delete stored content of File " + file.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // Lock do conteúdo de um registro (hash ou, nos registros antigos, o caminho)
+    ReentrantLock contentLock(File file) {
+        return lockFor(file.getContentHash() != null ? file.getContentHash() : file.getFilePath());
+    }
+
+    // Copia "in" para target (se informado) calculando o SHA-256 e, opcionalmente, comprimindo com gzip
+    private StoredContent stage(InputStream in, Path target, boolean compress) throws IOException {
+        MessageDigest digest = sha256();
+        long size;
+
+        try (InputStream digesting = new DigestInputStream(in, digest);
+             OutputStream out = target != null ? Files.newOutputStream(target) : OutputStream.nullOutputStream()) {
+            if (compress) {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+                    size = digesting.transferTo(gzip);
+                }
+            } else {
+                size = digesting.transferTo(out);
+            }
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String encoding = compress ? ContentCodec.GZIP : null;
+        long storedSize = target != null ? Files.size(target) : size;
+        return new StoredContent(hash, size, encoding, storedSize);
+    }
+
+    private File storeAndPersist(Path staged,
+                                 StoredContent content,
+                                 String fileName,
+                                 References references,
+                                 String description) throws IOException {
+
+        ReentrantLock lock = lockFor(content.hash());
+        lock.lock();
+        try {
+            StoredRef ref = storeContent(staged, content);
+            return persistFile(fileName, ref.filePath(), ref.content(), references, description);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deve ser chamado com o lock do hash em mãos
+    private StoredRef storeContent(Path staged, StoredContent content) throws IOException {
+        // Conteúdo idêntico já armazenado: reaproveita (com o codec com que foi gravado), sem nova escrita
+        StoredFileRow existing = fileRepository.findStoredByContentHash(content.hash(), Limit.of(1))
+                .stream().findFirst().orElse(null);
+        if (existing != null) {
+            return new StoredRef(existing.filePath(), storedContentOf(existing), false);
+        }
+
+        String key = ContentCodec.key(content.hash(), content.encoding());
+        if (storage.exists(key)) {
+            return new StoredRef(storage.location(key), content, false);
+        }
+        storage.store(key, staged);
+        return new StoredRef(storage.location(key), content, true);
+    }
+
+    private StoredContent storedContentOf(StoredFileRow file) {
+        long size = file.fileSize() != null ? file.fileSize() : 0;
+        long storedSize = file.storedSize() != null ? file.storedSize() : size;
+        return new StoredContent(file.contentHash(), size, file.contentEncoding(), storedSize);
+    }
+
+    private boolean compressible(String fileName) {
+        if (!compressionEnabled) {
+            return false;
+        }
+        MediaType type = MediaTypeFactory.getMediaType(fileName).orElse(null);
+        if (type == null) {
+            return false;
+        }
+        return MediaType.parseMediaTypes(compressibleTypes).stream()
+                .anyMatch(compressibleType -> compressibleType.includes(type));
+    }
+
+    // Arquivos temporários ficam fora da pasta de uploads, separados do conteúdo definitivo
+    private Path stagingDir() throws IOException {
+        return Files.createDirectories(Path.of(System.getProperty("user.dir"), "upload-sessions"));
+    }
+
+    private String sanitizeFileName(String originalName) {
+        return originalName
+                .replaceAll("\\s+", "_")
+                .replaceAll("[^a-zA-Z0-9._-]", "");
+    }
+
+    private String validHash(String contentHash) {
+        if (contentHash == null || !contentHash.matches("[0-9a-fA-F]{64}")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Hash SHA-256 inválido!");
+        }
+        return contentHash.toLowerCase();
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+
+    // O reconciliador usa o mesmo lock para não competir com uploads/deletes do mesmo conteúdo
+    ReentrantLock contentLock(String contentHash) {
+        return lockFor(contentHash);
+    }
+
+    private ReentrantLock lockFor(String key) {
+        return contentLocks[stripeOf(key)];
+    }
+
+    private int stripeOf(String key) {
+        return Math.floorMod(key.hashCode(), LOCK_STRIPES);
+    }
+
+    private void deleteStoredQuietly(String key) {
+        try {
+            storage.delete(key);
+        } catch (IOException e) {
+            logger.warning("Could not delete stored content " + key + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warning("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Hospital e FileType vêm do cache de referência; o paciente é o do hospital
+    private References resolveReferences(Long hospitalId, Long fileTypeId, String fileDate) {
+        Hospital hospital = referenceDataServices.findHospital(hospitalId)
+                .orElseThrow(() -> new RuntimeException("ERRO: Hospital ID " + hospitalId + " não existe!"));
+
+        FileType fileType = referenceDataServices.findFileType(fileTypeId)
+                .orElseThrow(() -> new RuntimeException("ERRO: FileType ID " + fileTypeId + " não existe!"));
+
+        return new References(hospital, fileType, LocalDate.parse(fileDate));
+    }
+
+    private File persistFile(String fileName,
+                             String filePath,
+                             StoredContent content,
+                             References references,
+                             String description) {
+
+        File saved = fileRepository.save(newFile(fileName, filePath, content, references, description));
+
+        // Dispara o processamento em segundo plano (miniaturas etc.)
+        eventPublisher.publishEvent(new FileStoredEvent(saved.getId(), content.hash(), fileName));
+        return saved;
+    }
+
+    private File newFile(String fileName,
+                         String filePath,
+                         StoredContent content,
+                         References references,
+                         String description) {
+
+        File file = new File();
+        file.setTitle(fileName);
+        file.setFileName(fileName);
+        file.setFilePath(filePath);
+        file.setContentHash(content.hash());
+        file.setFileSize(content.size());
+        file.setContentEncoding(content.encoding());
+        file.setStoredSize(content.storedSize());
+        file.setDescription(description);
+        file.setFileDate(references.fileDate());
+        file.setHospital(references.hospital());
+        file.setFileType(references.fileType());
+
+        file.setDoctorName("Dr. Teste");
+        file.setDoctorCrm("123456");
+        return file;
+    }
+
+    // size é o tamanho original; storedSize, o que ocupa no armazenamento
+    private record StoredContent(String hash, long size, String encoding, long storedSize) {
+    }
+
+    private record FileCursor(LocalDate fileDate, Long id) {
+    }
+
+    private record References(Hospital hospital, FileType fileType, LocalDate fileDate) {
+    }
+
+    // created indica que os bytes foram gravados agora (e podem ser removidos se a transação falhar)
+    private record StoredRef(String filePath, StoredContent content, boolean created) {
+    }
+}
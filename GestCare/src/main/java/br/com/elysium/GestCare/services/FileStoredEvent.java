@@ -0,0 +1,9 @@
+package br.com.elysium.GestCare.services;
+
+// Publicado pelo FileServices depois que um File é salvo no banco
+public record FileStoredEvent(
+        Long fileId,
+        String contentHash,
+        String fileName
+) {
+}
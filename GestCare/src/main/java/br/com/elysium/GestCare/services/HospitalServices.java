@@ -1,17 +1,23 @@
 package br.com.elysium.GestCare.services;
 
+import br.com.elysium.GestCare.dto.CollectionVersion;
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.HospitalListItem;
 import br.com.elysium.GestCare.exception.ResourceNotFoundException;
 import br.com.elysium.GestCare.model.Hospital;
 import br.com.elysium.GestCare.model.Patient;
 import br.com.elysium.GestCare.repositories.HospitalRepository;
 import br.com.elysium.GestCare.repositories.PatientRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 @Service
@@ -25,40 +31,106 @@ public class HospitalServices {
     @Autowired
     PatientRepository patientRepository;
 
-    public List<Hospital> findAll() {
-        return hospitalRepository.findAll();
+    @Autowired
+    ReferenceDataServices referenceDataServices;
+
+    @Autowired
+    MergePatchServices mergePatchServices;
+
+    // Campos que o PATCH pode alterar: o paciente do hospital não pode ser trocado
+    private static final Map<String, Class<?>> PATCHABLE = Map.of(
+            "name", String.class,
+            "cnpj", String.class,
+            "telephone", String.class,
+            "address", String.class);
+
+    @Value("${gestcare.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public CursorPage<HospitalListItem> findAll(String cursor, int size) {
+        int pageSize = CursorPage.size(size, maxPageSize);
+        Long afterId = CursorPage.decode(cursor, parts -> Long.valueOf(parts[0]));
+        List<HospitalListItem> rows = hospitalRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, hospital -> String.valueOf(hospital.id()));
     }
 
-    public Hospital findById(Long id) {
+    // patientId: paciente do token; null (chave de administração) vê qualquer hospital
+    @Transactional(readOnly = true)
+    public Hospital findById(Long id, Long patientId) {
         logger.info("Finding one Hospital!");
-        return hospitalRepository.findById(id)
+        return hospitalRepository.findByIdAndPatientId(id, patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+    }
+
+    // Paciente dono do hospital, pelo cache de referência (o paciente de um hospital não muda).
+    // Usado nos uploads, em que o hospital vem de um parâmetro e não da URL
+    public long ownerOf(Long id) {
+        return referenceDataServices.findHospital(id)
+                .map(hospital -> hospital.getPatient().getId())
                 .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
     }
 
-    public List<Hospital> findByHospitalName(String name, Long patientId) {
+    // Versão atual do hospital (ETag), sem carregar a entidade
+    @Transactional(readOnly = true)
+    public Long versionOf(Long id, Long patientId) {
+        return hospitalRepository.findVersionByIdAndPatientId(id, patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+    }
+
+    // ETag da lista de hospitais do paciente: muda com qualquer inclusão, remoção ou alteração
+    @Transactional(readOnly = true)
+    public CollectionVersion collectionVersionOf(Long patientId) {
+        return hospitalRepository.findCollectionVersionByPatientId(patientId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HospitalListItem> findByHospitalName(String name, Long patientId) {
         return hospitalRepository
-                .findByNameContainingIgnoreCaseAndPatientId(name, patientId);
+                .findByNameContainingIgnoreCaseAndPatientId(escapeLike(name), patientId);
     }
 
-    public List<Hospital> findByPatientId(Long patientId) {
-        return hospitalRepository.findByPatientId(patientId);
+    // O texto do usuário vai para um LIKE (ESCAPE '!'): % e _ passam a ser literais
+    static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<HospitalListItem> findByPatientId(Long patientId, String cursor, int size) {
+        int pageSize = CursorPage.size(size, maxPageSize);
+        Long afterId = CursorPage.decode(cursor, parts -> Long.valueOf(parts[0]));
+        List<HospitalListItem> rows = hospitalRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(
+                patientId, afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, hospital -> String.valueOf(hospital.id()));
     }
 
     @Transactional
     public Hospital create(Hospital hospital) {
         logger.info("Creating one Hospital!");
+        // Um version vindo do cliente faria o save() tratar o hospital novo como existente
+        hospital.setVersion(null);
         return hospitalRepository.save(hospital);
     }
 
+    // expectedVersion vem do If-Match (ou do campo version do corpo); ver PatientServices.update
     @Transactional
-    public Hospital update(Long id, Hospital hospital) {
+    public Hospital update(Long id, Hospital hospital, Long expectedVersion, Long patientId) {
 
         logger.info("Updating Hospital!");
 
-        Hospital entity = hospitalRepository.findById(id)
+        Hospital entity = hospitalRepository.findByIdAndPatientId(id, patientId)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("No records found for this ID!"));
 
+        Long expected = expectedVersion != null ? expectedVersion : hospital.getVersion();
+        if (expected != null && !expected.equals(entity.getVersion())) {
+            throw new ResponseStatusException(
+                    HttpStatus.PRECONDITION_FAILED,
+                    "The hospital was changed by someone else; reload and try again!"
+            );
+        }
+
         // 🔐 REGRA DE SEGURANÇA:
         // Não permitir trocar o paciente do hospital
         if (hospital.getPatient() != null &&
@@ -76,17 +148,31 @@ public class HospitalServices {
         entity.setTelephone(hospital.getTelephone());
         entity.setAddress(hospital.getAddress());
 
+        referenceDataServices.evictHospital(id);
         return hospitalRepository.save(entity);
     }
 
+    // JSON Merge Patch: grava só os campos enviados, sem ler o hospital antes (ver MergePatchServices)
+    @Transactional
+    public long patch(Long id, Map<String, Object> patch, Long expectedVersion, Long patientId) {
+
+        logger.info("Patching Hospital!");
+
+        long version = mergePatchServices.apply(Hospital.class, id, "patient.id", patientId,
+                patch, expectedVersion, PATCHABLE);
+        referenceDataServices.evictHospital(id);
+        return version;
+    }
+
     @Transactional
-    public void delete(Long id) {
+    public void delete(Long id, Long patientId) {
 
         logger.info("Deleting one Hospital!");
 
-        Hospital entity = hospitalRepository.findById(id)
+        Hospital entity = hospitalRepository.findByIdAndPatientId(id, patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
 
         hospitalRepository.delete(entity);
+        referenceDataServices.evictHospital(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON Merge Patch (RFC 7386) sem ler a entidade antes de gravar.
+ *
+ * Só os campos presentes no patch entram no UPDATE (null apaga o valor), cada um validado
+ * com as anotações da entidade (e null recusado nas colunas NOT NULL). A versão esperada (If-Match ou "version" no corpo) vai no
+ * WHERE junto com o id, então uma alteração concorrente faz o UPDATE não afetar nenhuma
+ * linha e o patch é recusado (412). Um patch vazio não vai ao banco.
+ *
+ * O UPDATE é JPQL (bulk): o Hibernate invalida sozinho o cache de segundo nível da entidade.
+ * Com dono (ownerField/ownerId), o próprio UPDATE fica restrito a ele: registro de outro
+ * paciente responde 404, sem uma consulta à parte antes.
+ */
+@Service
+public class MergePatchServices {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param patchable campos que o patch pode alterar e o tipo de cada um
+     * @return a versão da entidade depois do patch
+     */
+    @Transactional
+    public long apply(Class<?> entity,
+                      long id,
+                      Map<String, Object> patch,
+                      Long expectedVersion,
+                      Map<String, Class<?>> patchable) {
+        return apply(entity, id, null, null, patch, expectedVersion, patchable);
+    }
+
+    /**
+     * @param ownerField caminho do dono na entidade (ex.: "patient.id")
+     * @param ownerId    dono exigido; null não restringe (chave de administração)
+     */
+    @Transactional
+    public long apply(Class<?> entity,
+                      long id,
+                      String ownerField,
+                      Long ownerId,
+                      Map<String, Object> patch,
+                      Long expectedVersion,
+                      Map<String, Class<?>> patchable) {
+
+        Map<String, Object> fields = new LinkedHashMap<>(patch);
+        Object bodyVersion = fields.remove("version");
+        Long version = expectedVersion != null ? expectedVersion : toVersion(bodyVersion);
+        if (version == null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "Informe a versão (If-Match ou \"version\") para alterar o registro!");
+        }
+
+        Map<String, Object> assignments = convertAndValidate(entity, fields, patchable);
+        if (assignments.isEmpty()) {
+            return version;
+        }
+
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entity.getSimpleName()).append(" e SET ");
+        assignments.keySet().forEach(field -> jpql.append("e.").append(field).append(" = :").append(field).append(", "));
+        String owned = ownerId != null ? " AND e." + ownerField + " = :owner" : "";
+        jpql.append("e.version = e.version + 1 WHERE e.id = :id AND e.version = :version").append(owned);
+
+        Query update = entityManager.createQuery(jpql.toString());
+        assignments.forEach(update::setParameter);
+        update.setParameter("id", id);
+        update.setParameter("version", version);
+        if (ownerId != null) {
+            update.setParameter("owner", ownerId);
+        }
+
+        if (update.executeUpdate() == 0) {
+            // Nada atualizado: ou o registro não existe (para este dono), ou mudou desde que o cliente o leu
+            Query lookup = entityManager
+                    .createQuery("SELECT e.version FROM " + entity.getSimpleName() + " e WHERE e.id = :id" + owned)
+                    .setParameter("id", id);
+            if (ownerId != null) {
+                lookup.setParameter("owner", ownerId);
+            }
+            List<?> current = lookup.getResultList();
+            if (current.isEmpty()) {
+                throw new ResourceNotFoundException("No records found for this ID!");
+            }
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "The record was changed by someone else; reload and try again!");
+        }
+        return version + 1;
+    }
+
+    private Map<String, Object> convertAndValidate(Class<?> entity,
+                                                   Map<String, Object> fields,
+                                                   Map<String, Class<?>> patchable) {
+        Map<String, Object> assignments = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Class<?> type = patchable.get(field.getKey());
+            if (type == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "O campo \"" + field.getKey() + "\" não pode ser alterado!");
+            }
+
+            if (field.getValue() == null && !nullable(entity, field.getKey())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "O campo \"" + field.getKey() + "\" não pode ser apagado!");
+            }
+
+            Object value;
+            try {
+                value = field.getValue() == null ? null : objectMapper.convertValue(field.getValue(), type);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Valor inválido para \"" + field.getKey() + "\"!");
+            }
+
+            Set<? extends ConstraintViolation<?>> violations = validator.validateValue(entity, field.getKey(), value);
+            if (!violations.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        field.getKey() + ": " + violations.iterator().next().getMessage());
+            }
+            assignments.put(field.getKey(), value);
+        }
+        return assignments;
+    }
+
+    // NOT NULL sem anotação de validação (ex.: lastName, cpf): o null só falharia no UPDATE, como 409
+    private boolean nullable(Class<?> entity, String field) {
+        try {
+            Column column = entity.getDeclaredField(field).getAnnotation(Column.class);
+            return column == null || column.nullable();
+        } catch (NoSuchFieldException e) {
+            return true;
+        }
+    }
+
+    private Long toVersion(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor inválido para \"version\"!");
+        }
+    }
+}
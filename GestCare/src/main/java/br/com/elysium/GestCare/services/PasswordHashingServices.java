@@ -0,0 +1,213 @@
+package br.com.elysium.GestCare.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Hash de senhas com BCrypt (custo em gestcare.auth.bcrypt-strength).
+ *
+ * O BCrypt é caro de propósito, então roda num pool próprio e pequeno, com fila limitada:
+ * uma rajada de logins não ocupa as threads que atendem /patient e /file. Com a fila cheia
+ * (ou a espera maior que hash-timeout-ms) a requisição recebe 503 na hora em vez de
+ * esperar. Tarefas de fundo (importação em lote) usam o mesmo pool pelo hashWaiting(): em
+ * vez do 503 elas esperam a vez, e nunca ocupam mais que metade da fila. Os tempos ficam em
+ * gestcare.password.hash (op=hash|verify) para ajustar o custo; o ideal é algo entre 100 e
+ * 300 ms por hash.
+ */
+@Service
+public class PasswordHashingServices {
+
+    // $2a$/$2b$/$2y$, custo com dois dígitos, 22 caracteres de salt e 31 de hash
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+    private static final long RETRY_DELAY_MS = 20;
+
+    private Logger logger = Logger.getLogger(PasswordHashingServices.class.getName());
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gestcare.auth.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${gestcare.auth.hash-threads:2}")
+    private int threads;
+
+    @Value("${gestcare.auth.hash-queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${gestcare.auth.hash-timeout-ms:2000}")
+    private long timeoutMs;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+    // Lugares na fila para o hashWaiting(); o restante fica para logins e cadastros
+    private Semaphore backgroundSlots;
+
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Counter rejected;
+
+    // Comparado quando o login não existe, para que a resposta leve o mesmo tempo
+    private String dummyHash;
+
+    @PostConstruct
+    public void start() {
+        encoder = new BCryptPasswordEncoder(strength);
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        backgroundSlots = new Semaphore(Math.max(1, queueCapacity / 2));
+
+        hashTimer = timer("hash");
+        verifyTimer = timer("verify");
+        rejected = meterRegistry.counter("gestcare.password.hash.rejected");
+        Gauge.builder("gestcare.password.hash.queue", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+
+        dummyHash = encoder.encode("gestcare-dummy-password");
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public String hash(String rawPassword) {
+        return submit(() -> encode(rawPassword));
+    }
+
+    // Para tarefas de fundo (ex.: escritores da importação em lote): mesmo pool do hash(), mas
+    // com a fila cheia espera a vez em vez de recusar. As threads de quem chama (virtuais, na
+    // importação) só ficam paradas esperando; o BCrypt roda nas threads do pool.
+    public String hashWaiting(String rawPassword) {
+        try {
+            backgroundSlots.acquire();
+            try {
+                Future<String> future = submitWaiting(() -> encode(rawPassword));
+                return future.get();
+            } finally {
+                backgroundSlots.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            logger.warning("Password hashing failed: " + e.getCause().getMessage());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // encodedPassword nulo (login inexistente) também custa um BCrypt inteiro e dá false
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> verifyTimer.record(() -> {
+            if (encodedPassword == null) {
+                encoder.matches(rawPassword, dummyHash);
+                return false;
+            }
+            if (!isHashed(encodedPassword)) {
+                // Senha antiga, gravada antes do hash: comparação em tempo constante
+                return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                        encodedPassword.getBytes(StandardCharsets.UTF_8));
+            }
+            return encoder.matches(rawPassword, encodedPassword);
+        }));
+    }
+
+    // Senha antiga em texto puro ou hash com custo menor que o configurado
+    public boolean needsRehash(String encodedPassword) {
+        return !isHashed(encodedPassword) || encoder.upgradeEncoding(encodedPassword);
+    }
+
+    // Hash BCrypt completo, pronto para gravar (ex.: vindo do sistema de origem na importação)
+    public boolean isBcryptHash(String value) {
+        return value != null && BCRYPT_HASH.matcher(value).matches();
+    }
+
+    private boolean isHashed(String encodedPassword) {
+        return encodedPassword.startsWith("$2a$") || encodedPassword.startsWith("$2b$")
+                || encodedPassword.startsWith("$2y$");
+    }
+
+    private String encode(String rawPassword) {
+        return hashTimer.record(() -> encoder.encode(rawPassword));
+    }
+
+    // Fila tomada por uma rajada de logins: tenta de novo em seguida, sem recusar
+    private <T> Future<T> submitWaiting(Callable<T> task) throws InterruptedException {
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw busy();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            logger.warning("Password hashing failed: " + e.getCause().getMessage());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many password checks in progress, try again shortly!");
+    }
+
+    private Timer timer(String op) {
+        return Timer.builder("gestcare.password.hash")
+                .tag("op", op)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
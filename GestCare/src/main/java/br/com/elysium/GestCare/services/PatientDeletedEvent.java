@@ -0,0 +1,7 @@
+package br.com.elysium.GestCare.services;
+
+// Publicado pelo PatientServices quando um Patient é excluído (soft delete)
+public record PatientDeletedEvent(
+        Long patientId
+) {
+}
@@ -0,0 +1,153 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta todos os documentos de um paciente num único ZIP, escrito direto na resposta.
+ *
+ * Cada documento é lido do armazenamento (descomprimido, se gravado com gzip) e copiado
+ * para a entrada do ZIP em streaming: nenhum arquivo temporário e só o buffer do
+ * Deflater em memória. O manifest.csv vai por último, com o resultado de cada entrada.
+ */
+@Service
+public class PatientExportServices {
+
+    // Formatos que já são comprimidos: deflate só gastaria CPU
+    private static final Set<String> ALREADY_COMPRESSED = Set.of(
+            "pdf", "jpg", "jpeg", "png", "gif", "zip", "gz", "docx", "xlsx", "pptx", "mp4", "dcm");
+
+    private static final String MANIFEST_HEADER =
+            "id,entry,title,hospital,fileType,fileDate,uploadDate,description,contentHash,size,status";
+
+    private Logger logger = Logger.getLogger(PatientExportServices.class.getName());
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    // Chamado antes de começar a resposta: depois do primeiro byte não dá mais para devolver 404
+    public List<File> selectFiles(Long patientId,
+                                  Long hospitalId,
+                                  Long fileTypeId,
+                                  LocalDate from,
+                                  LocalDate to) {
+
+        if (!patientRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("No records found for this ID!");
+        }
+
+        return fileRepository.findForExport(patientId, hospitalId, fileTypeId, from, to);
+    }
+
+    public void writeZip(List<File> files, OutputStream out) throws IOException {
+        StringBuilder manifest = new StringBuilder(MANIFEST_HEADER).append("\r\n");
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        for (File file : files) {
+            String entryName = "documentos/" + file.getId() + "-" + file.getFileName();
+            String status = "ok";
+
+            try (InputStream in = open(file)) {
+                ZipEntry entry = new ZipEntry(entryName);
+                if (file.getUploadDate() != null) {
+                    entry.setTimeLocal(file.getUploadDate());
+                }
+                zip.setLevel(alreadyCompressed(file.getFileName())
+                        ? Deflater.NO_COMPRESSION
+                        : Deflater.DEFAULT_COMPRESSION);
+                zip.putNextEntry(entry);
+                in.transferTo(zip);
+                zip.closeEntry();
+            } catch (ResourceNotFoundException e) {
+                // Conteúdo ausente no armazenamento: o documento fica registrado no manifesto, sem entrada
+                logger.warning("Export skipped File " + file.getId() + ": " + e.getMessage());
+                entryName = "";
+                status = "missing";
+            }
+
+            manifest.append(manifestLine(file, entryName, status)).append("\r\n");
+        }
+
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry("manifest.csv"));
+        zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private InputStream open(File file) throws IOException {
+        if (file.getContentHash() == null) {
+            // Registro anterior ao armazenamento por hash (ainda não migrado)
+            Path legacy = Path.of(file.getFilePath());
+            if (!Files.exists(legacy)) {
+                throw new ResourceNotFoundException("Stored content not found for this ID!");
+            }
+            return Files.newInputStream(legacy);
+        }
+
+        String key = ContentCodec.key(file.getContentHash(), file.getContentEncoding());
+        if (!storage.exists(key)) {
+            throw new ResourceNotFoundException("Stored content not found for this ID!");
+        }
+        return ContentCodec.decode(storage.open(key), file.getContentEncoding());
+    }
+
+    private boolean alreadyCompressed(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot >= 0 && ALREADY_COMPRESSED.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+    private String manifestLine(File file, String entryName, String status) {
+        return String.join(",",
+                String.valueOf(file.getId()),
+                csv(entryName),
+                csv(file.getTitle()),
+                csv(file.getHospital() != null ? file.getHospital().getName() : null),
+                csv(file.getFileType() != null ? file.getFileType().getName() : null),
+                csv(file.getFileDate() != null ? file.getFileDate().toString() : null),
+                csv(file.getUploadDate() != null ? file.getUploadDate().toString() : null),
+                csv(file.getDescription()),
+                csv(file.getContentHash()),
+                file.getFileSize() != null ? String.valueOf(file.getFileSize()) : "",
+                status);
+    }
+
+    // Texto que começa com = + - @ (ou tab/CR) vira fórmula ao abrir o manifesto numa planilha:
+    // o apóstrofo na frente faz o Excel/LibreOffice tratá-lo como texto
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Remove de fato os pacientes excluídos (soft delete): documentos, conteúdo armazenado,
+ * hospitais e por fim o próprio paciente.
+ *
+ * Tudo vai em lotes de batch-size por DELETE ... WHERE id IN (...), cada lote na sua própria
+ * transação, com no máximo "parallelism" pacientes ao mesmo tempo. Não há estado além do
+ * banco: o paciente continua marcado até o último passo, então depois de uma queda a próxima
+ * execução retoma do que sobrou. Conteúdo cuja linha já saiu mas que não chegou a ser apagado
+ * (queda entre os dois passos) fica órfão e é achado pelo StorageReconcilerServices.
+ */
+@Service
+public class PatientPurgeServices {
+
+    private Logger logger = Logger.getLogger(PatientPurgeServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileServices fileServices;
+
+    @Autowired
+    private ReferenceDataServices referenceDataServices;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${gestcare.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gestcare.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${gestcare.purge.parallelism:2}")
+    private int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter purgedPatients;
+    private Counter purgedHospitals;
+    private Counter purgedFiles;
+
+    @PostConstruct
+    public void registerMetrics() {
+        purgedPatients = meterRegistry.counter("gestcare.purge.patients");
+        purgedHospitals = meterRegistry.counter("gestcare.purge.hospitals");
+        purgedFiles = meterRegistry.counter("gestcare.purge.files");
+    }
+
+    @Scheduled(fixedDelayString = "${gestcare.purge.delay-ms:60000}")
+    public void purgeOnSchedule() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    public void purge() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Patient purge already running!");
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                workerThreads.ioBound("purge", Thread.MIN_PRIORITY));
+
+        try {
+            List<Long> pending = patientRepository.findDeletedIds(parallelism * 10);
+            while (!pending.isEmpty()) {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (Long patientId : pending) {
+                    tasks.add(executor.submit(() -> purgePatient(patientId)));
+                }
+                for (Future<?> patient : tasks) {
+                    patient.get();
+                }
+                List<Long> next = patientRepository.findDeletedIds(parallelism * 10);
+                // Algum paciente não pôde ser removido (ver purgePatient): tenta na próxima execução
+                if (next.equals(pending)) {
+                    break;
+                }
+                pending = next;
+            }
+        } catch (Exception e) {
+            logger.warning("Patient purge failed: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    private void purgePatient(long patientId) {
+        try {
+            purgeFiles(patientId);
+            purgeHospitals(patientId);
+            if (patientRepository.purge(patientId) > 0) {
+                purgedPatients.increment();
+                logger.info("Patient " + patientId + " purged!");
+            }
+        } catch (RuntimeException e) {
+            // Ex.: um documento enviado para um hospital do paciente durante o purge (chave estrangeira)
+            logger.warning("Could not purge Patient " + patientId + ": " + e.getMessage());
+        }
+    }
+
+    private void purgeFiles(long patientId) {
+        List<File> batch = fileRepository.findPurgeBatchByPatientId(patientId, batchSize);
+        while (!batch.isEmpty()) {
+            fileRepository.deleteByIds(batch.stream().map(File::getId).toList());
+            purgedFiles.increment(batch.size());
+
+            for (File file : batch) {
+                ReentrantLock lock = fileServices.contentLock(file);
+                lock.lock();
+                try {
+                    fileServices.releaseContent(file);
+                } finally {
+                    lock.unlock();
+                }
+                eventPublisher.publishEvent(new FileDeletedEvent(file.getId()));
+            }
+            batch = fileRepository.findPurgeBatchByPatientId(patientId, batchSize);
+        }
+    }
+
+    private void purgeHospitals(long patientId) {
+        List<Long> batch = hospitalRepository.findIdsByPatientId(patientId, batchSize);
+        while (!batch.isEmpty()) {
+            hospitalRepository.deleteByIds(batch);
+            purgedHospitals.increment(batch.size());
+
+            // DELETE por JDBC não passa pelo Hibernate: as entradas em cache saem aqui
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            for (Long id : batch) {
+                cache.evictEntityData(Hospital.class, id);
+                referenceDataServices.evictHospital(id);
+            }
+            batch = hospitalRepository.findIdsByPatientId(patientId, batchSize);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.elysium.GestCare.services;
+
+// Publicado pelo PatientServices depois que um Patient é criado ou alterado
+public record PatientSavedEvent(
+        Long patientId
+) {
+}
@@ -0,0 +1,448 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.PatientSearchHit;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.model.SearchIndexJob;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.repositories.SearchIndexJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+/**
+ * Busca de pacientes por nome, sobrenome, CPF ou e-mail, sem diferença de acentos
+ * ("Joao" encontra "João"), por prefixo ("Ferr" encontra "Ferreira") e tolerante a
+ * pequenos erros de digitação ("Ferriera").
+ *
+ * O índice (Lucene, em disco) é atualizado pelos eventos do PatientServices depois do
+ * commit. Como no DocumentSearchServices, cada alteração deixa uma linha em search_index_job
+ * que só sai depois do commit do Lucene: na subida os pendentes são reaplicados, o número de
+ * documentos é conferido com a tabela patient e, se divergir, o índice é reconstruído.
+ * Os resultados saem do próprio índice, sem consultar o banco.
+ */
+@Service
+public class PatientSearchServices {
+
+    private static final int PAGE_SIZE = 500;
+    private static final Set<SearchIndexJob.Target> TARGETS = EnumSet.of(SearchIndexJob.Target.PATIENT);
+    private static final Sort RANKING = new Sort(SortField.FIELD_SCORE, new SortField("idSort", SortField.Type.LONG));
+
+    private Logger logger = Logger.getLogger(PatientSearchServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private SearchIndexJobRepository jobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gestcare.search.patient-index-dir:./patient-index}")
+    private String indexDir;
+
+    @Value("${gestcare.pagination.max-size:100}")
+    private int maxPageSize;
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private TransactionTemplate requiresNew;
+
+    // Jobs em aplicação ou já aplicados ao índice, ainda não apagados da tabela
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+    // Jobs aplicados que esperam o próximo commit para sair da tabela
+    private final Queue<Long> applied = new ConcurrentLinkedQueue<>();
+    // Marca os documentos gravados desde a última reconstrução (os demais são apagados no fim dela)
+    private volatile String generation = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = FSDirectory.open(Files.createDirectories(Path.of(indexDir)));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, new SearcherFactory());
+
+        // Os listeners rodam depois do commit da transação do evento: o job precisa de uma transação própria
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // Subida: reaplica o que ficou pendente e confere o índice com a tabela patient, em segundo plano
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        Thread reconcile = new Thread(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                logger.warning("Could not reconcile the patient search index: " + e.getMessage());
+            }
+        }, "patient-index-reconcile");
+        reconcile.setDaemon(true);
+        reconcile.setPriority(Thread.MIN_PRIORITY);
+        reconcile.start();
+    }
+
+    public void reconcile() throws IOException {
+        int replayed = replayPending();
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " pending patient index jobs!");
+            refreshQuietly();
+        }
+        // Deleções ainda em memória não entram na contagem do writer
+        commit();
+
+        long indexed = writer.getDocStats().numDocs;
+        long expected = transactionTemplate.execute(status -> patientRepository.count());
+        if (indexed != expected) {
+            logger.info("Patient search index has " + indexed + " documents, the patient table " + expected + ".");
+            rebuild();
+            commit();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientSaved(PatientSavedEvent event) {
+        apply(List.of(saveJob(event.patientId())));
+        refreshQuietly();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        apply(List.of(saveJob(event.patientId())));
+        refreshQuietly();
+    }
+
+    // Importação em lote: indexa os pacientes já gravados sem reler do banco
+    public void indexAll(List<Patient> patients) {
+        if (patients.isEmpty()) {
+            return;
+        }
+        List<SearchIndexJob> jobs = requiresNew.execute(status -> jobRepository.saveAll(patients.stream()
+                .map(patient -> new SearchIndexJob(SearchIndexJob.Target.PATIENT, patient.getId()))
+                .toList()));
+        for (int i = 0; i < patients.size(); i++) {
+            Long jobId = jobs.get(i).getId();
+            claimed.add(jobId);
+            try {
+                index(patients.get(i));
+                applied.add(jobId);
+            } catch (IOException e) {
+                claimed.remove(jobId);
+                logger.warning("Could not index Patient " + patients.get(i).getId() + ": " + e.getMessage());
+            }
+        }
+        refreshQuietly();
+    }
+
+    // Retoma os jobs que falharam (ex.: banco indisponível ao reler o paciente)
+    @Scheduled(fixedDelayString = "${gestcare.search.poll-interval-ms:30000}")
+    public void pollPending() {
+        if (replayPending() > 0) {
+            refreshQuietly();
+        }
+    }
+
+    // Só os jobs aplicados antes do commit saem da tabela; os demais esperam o próximo
+    @Scheduled(fixedDelayString = "${gestcare.search.commit-interval-ms:30000}")
+    public synchronized void commit() throws IOException {
+        List<Long> done = new ArrayList<>();
+        for (Long id = applied.poll(); id != null; id = applied.poll()) {
+            done.add(id);
+        }
+
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+        if (done.isEmpty()) {
+            return;
+        }
+        try {
+            jobRepository.deleteAllByIdInBatch(done);
+            done.forEach(claimed::remove);
+        } catch (RuntimeException e) {
+            applied.addAll(done);
+            logger.warning("Could not remove " + done.size() + " patient index jobs: " + e.getMessage());
+        }
+    }
+
+    public CursorPage<PatientSearchHit> search(String text, String cursor, int size) throws IOException {
+        int pageSize = CursorPage.size(size, maxPageSize);
+        FieldDoc after = CursorPage.decode(cursor, parts -> {
+            float score = Float.parseFloat(parts[0]);
+            return new FieldDoc(Integer.MAX_VALUE, score, new Object[]{score, Long.valueOf(parts[1])});
+        });
+
+        Query query = buildQuery(text);
+        if (query == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopFieldDocs top = searcher.searchAfter(after, query, pageSize + 1, RANKING, true);
+            List<PatientSearchHit> rows = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document document = searcher.storedFields().document(scoreDoc.doc);
+                rows.add(new PatientSearchHit(
+                        Long.valueOf(document.get("id")),
+                        document.get("name"),
+                        document.get("lastName"),
+                        document.get("cpf"),
+                        document.get("email"),
+                        scoreDoc.score));
+            }
+            return CursorPage.of(rows, pageSize, hit -> hit.score() + "|" + hit.id());
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // Cada termo digitado precisa casar com algo (nome/sobrenome exato, prefixo ou aproximado; CPF ou e-mail por prefixo)
+    private Query buildQuery(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String raw : text.trim().split("\\s+")) {
+            if (raw.contains("@")) {
+                query.add(new PrefixQuery(new Term("emailKey", raw.toLowerCase())), BooleanClause.Occur.MUST);
+                continue;
+            }
+
+            String digits = raw.replaceAll("[.\\-/]", "");
+            if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit)) {
+                query.add(new PrefixQuery(new Term("cpfDigits", digits)), BooleanClause.Occur.MUST);
+                continue;
+            }
+
+            for (String token : analyze(raw)) {
+                BooleanQuery.Builder alternatives = new BooleanQuery.Builder()
+                        .add(new BoostQuery(new TermQuery(new Term("tokens", token)), 3f), BooleanClause.Occur.SHOULD)
+                        .add(new BoostQuery(new PrefixQuery(new Term("tokens", token)), 2f), BooleanClause.Occur.SHOULD);
+                if (token.length() >= 4) {
+                    alternatives.add(new FuzzyQuery(new Term("tokens", token), token.length() >= 7 ? 2 : 1),
+                            BooleanClause.Occur.SHOULD);
+                }
+                query.add(alternatives.build(), BooleanClause.Occur.MUST);
+            }
+        }
+
+        BooleanQuery built = query.build();
+        return built.clauses().isEmpty() ? null : built;
+    }
+
+    private SearchIndexJob saveJob(Long patientId) {
+        return requiresNew.execute(status -> jobRepository.save(new SearchIndexJob(SearchIndexJob.Target.PATIENT, patientId)));
+    }
+
+    private int replayPending() {
+        List<SearchIndexJob> pending = new ArrayList<>();
+        List<SearchIndexJob> page = transactionTemplate.execute(status ->
+                jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(TARGETS, 0L, Limit.of(PAGE_SIZE)));
+        while (!page.isEmpty()) {
+            page.stream().filter(job -> !claimed.contains(job.getId())).forEach(pending::add);
+            long after = page.get(page.size() - 1).getId();
+            page = transactionTemplate.execute(status ->
+                    jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(TARGETS, after, Limit.of(PAGE_SIZE)));
+        }
+        return apply(pending);
+    }
+
+    // Idempotente: o paciente é relido do banco (indexado se existe, removido se não), então
+    // repetir um job na subida não faz mal. Devolve quantos foram aplicados.
+    private int apply(List<SearchIndexJob> jobs) {
+        int count = 0;
+        for (SearchIndexJob job : jobs) {
+            if (!claimed.add(job.getId())) {
+                continue;
+            }
+            try {
+                // Lido numa transação de escrita para cair no primário: uma réplica atrasada
+                // ainda não teria a alteração que acabou de ser gravada
+                Optional<Patient> patient = transactionTemplate.execute(status -> patientRepository.findById(job.getTargetId()));
+                if (patient.isPresent()) {
+                    index(patient.get());
+                } else {
+                    writer.deleteDocuments(new Term("id", String.valueOf(job.getTargetId())));
+                }
+                applied.add(job.getId());
+                count++;
+            } catch (Exception e) {
+                claimed.remove(job.getId());
+                logger.warning("Could not apply patient index job " + job.getId() + ": " + e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    // Reindexa tudo sem esvaziar o índice antes: a busca continua respondendo durante a
+    // reconstrução, e no fim saem os pacientes que não foram regravados (excluídos)
+    private void rebuild() throws IOException {
+        logger.info("Rebuilding the patient search index!");
+        String current = UUID.randomUUID().toString();
+        generation = current;
+
+        int indexed = 0;
+        List<Patient> page = transactionTemplate.execute(status ->
+                patientRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(PAGE_SIZE)));
+        while (!page.isEmpty()) {
+            for (Patient patient : page) {
+                index(patient);
+                indexed++;
+            }
+            long lastId = page.get(page.size() - 1).getId();
+            page = transactionTemplate.execute(status ->
+                    patientRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(PAGE_SIZE)));
+        }
+
+        writer.deleteDocuments(new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term("generation", current)), BooleanClause.Occur.MUST_NOT)
+                .build());
+        refreshQuietly();
+        logger.info("Patient search index rebuilt: " + indexed + " patients.");
+    }
+
+    private void index(Patient patient) throws IOException {
+        String id = String.valueOf(patient.getId());
+        Document document = new Document();
+        document.add(new StringField("id", id, Field.Store.YES));
+        document.add(new StringField("generation", generation, Field.Store.NO));
+        document.add(new NumericDocValuesField("idSort", patient.getId()));
+        document.add(new TextField("tokens", join(patient.getName(), patient.getLastName()), Field.Store.NO));
+        if (patient.getCpf() != null) {
+            document.add(new StringField("cpfDigits", patient.getCpf().replaceAll("\\D", ""), Field.Store.NO));
+        }
+        if (patient.getEmail() != null) {
+            document.add(new StringField("emailKey", patient.getEmail().toLowerCase(), Field.Store.NO));
+        }
+        storeIfPresent(document, "name", patient.getName());
+        storeIfPresent(document, "lastName", patient.getLastName());
+        storeIfPresent(document, "cpf", patient.getCpf());
+        storeIfPresent(document, "email", patient.getEmail());
+
+        writer.updateDocument(new Term("id", id), document);
+    }
+
+    private void storeIfPresent(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new StoredField(field, value));
+        }
+    }
+
+    private String join(String first, String last) {
+        return (first != null ? first : "") + " " + (last != null ? last : "");
+    }
+
+    private List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("tokens", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    // Alterações de cadastro aparecem na busca logo em seguida
+    private void refreshQuietly() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warning("Could not refresh the patient search index: " + e.getMessage());
+        }
+    }
+
+    // Minúsculas e sem acentos, sem stemming: nomes próprios não devem ser reduzidos
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer source = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(source));
+            return new TokenStreamComponents(source, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package br.com.elysium.GestCare.services;
 
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.PatientSearchHit;
 import br.com.elysium.GestCare.exception.ResourceNotFoundException;
 import br.com.elysium.GestCare.model.Hospital;
 import br.com.elysium.GestCare.model.Patient;
 import br.com.elysium.GestCare.repositories.PatientRepository;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
@@ -24,7 +40,53 @@ public class PatientServices {
     @Autowired
     PatientRepository patientRepository;
 
-    public List<Patient> findAll(){
+    @Autowired
+    ReferenceDataServices referenceDataServices;
+
+    @Autowired
+    PatientSearchServices patientSearchServices;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MergePatchServices mergePatchServices;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PasswordHashingServices passwordHashingServices;
+
+    @Autowired
+    AccessTokenServices accessTokenServices;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    Validator validator;
+
+    // Campos que o PATCH pode alterar; id, joinDate e version ficam de fora
+    private static final Map<String, Class<?>> PATCHABLE = Map.of(
+            "name", String.class,
+            "lastName", String.class,
+            "cpf", String.class,
+            "birthDate", LocalDate.class,
+            "email", String.class,
+            "telephone", String.class,
+            "password", String.class,
+            "gender", Integer.class,
+            "verified", Boolean.class);
+
+    // Campos que vão para o índice de busca
+    private static final Set<String> INDEXED = Set.of("name", "lastName", "cpf", "email");
+
+    @Value("${gestcare.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public CursorPage<Patient> findAll(String cursor, int size){
         //Mocking:
         //List<Patient> patients = new ArrayList<>();
         //for (int i = 0; i < 3; i++){
@@ -33,9 +95,14 @@ public class PatientServices {
         //}
         //return patients;
         //Final Mocking
-        return patientRepository.findAll();
+        int pageSize = CursorPage.size(size, maxPageSize);
+        Long afterId = CursorPage.decode(cursor, parts -> Long.valueOf(parts[0]));
+        List<Patient> rows = patientRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, patient -> String.valueOf(patient.getId()));
     }
 
+    @Transactional(readOnly = true)
     public Patient findById(Long id){
         logger.info("Finding One Patient!");
 
@@ -59,52 +126,128 @@ public class PatientServices {
                 .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
     }
 
+    // Versão atual do paciente (ETag), sem carregar a entidade
+    @Transactional(readOnly = true)
+    public Long versionOf(Long id) {
+        return patientRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+    }
+
+    // GET /patient/search?name= (formato antigo): nome exato, direto no banco
+    @Transactional(readOnly = true)
     public List<Patient> findByPatientName(String name) {
         return patientRepository
                 .findByName(name);
     }
 
-    @Transactional
+    // Busca por nome, sobrenome, CPF ou e-mail no índice (sem acentos, por prefixo, aproximada)
+    public CursorPage<PatientSearchHit> search(String text, String cursor, int size) {
+        try {
+            return patientSearchServices.search(text, cursor, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao buscar pacientes: " + e.getMessage());
+        }
+    }
+
+    // Sem @Transactional: o hash da senha (BCrypt) roda antes de a transação pegar uma conexão
     public Patient create(Patient patient) {
 
         logger.info("Creating one Patient!");
 
-        return patientRepository.save(patient);
+        // Um version vindo do cliente faria o save() tratar o paciente novo como existente
+        patient.setVersion(null);
+        patient.setPassword(passwordHashingServices.hash(patient.getPassword()));
+
+        return transactionTemplate.execute(status -> {
+            Patient saved = patientRepository.save(patient);
+            eventPublisher.publishEvent(new PatientSavedEvent(saved.getId()));
+            return saved;
+        });
         //return patient;    //Mock
     }
 
-    @Transactional
-    public Patient update(Patient patient) {
+    // expectedVersion vem do If-Match (ou do campo version do corpo): se o paciente mudou
+    // desde que o cliente o leu, a edição é recusada em vez de sobrescrever a outra
+    public Patient update(Patient patient, Long expectedVersion) {
 
         logger.info("Updating one Patient!");
 
+        String password = passwordHashingServices.hash(patient.getPassword());
+        return transactionTemplate.execute(status -> updateInTransaction(patient, password, expectedVersion));
+    }
+
+    private Patient updateInTransaction(Patient patient, String password, Long expectedVersion) {
         Patient patientEntity = patientRepository.findById(patient.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
 
+        checkVersion(patientEntity.getVersion(), expectedVersion != null ? expectedVersion : patient.getVersion());
+
         patientEntity.setName(patient.getName());
         patientEntity.setLastName(patient.getLastName());
         patientEntity.setCpf(patient.getCpf());
         patientEntity.setBirthDate(patient.getBirthDate());
         patientEntity.setEmail(patient.getEmail());
         patientEntity.setTelephone(patient.getTelephone());
-        patientEntity.setPassword(patient.getPassword());
+        patientEntity.setPassword(password);
        // patientEntity.setJoinDate(patient.getJoinDate());
         patientEntity.setVerified(patient.getVerified());
         patientEntity.setGender(patient.getGender());
 
-        return patientRepository.save(patientEntity);
+        Patient saved = patientRepository.save(patientEntity);
+        eventPublisher.publishEvent(new PatientSavedEvent(saved.getId()));
+        return saved;
         //return patient;  //MOCK
     }
 
+    // JSON Merge Patch: grava só os campos enviados, sem ler o paciente antes (ver MergePatchServices)
+    // Sem @Transactional pelo mesmo motivo do create: o UPDATE tem a sua própria transação
+    public long patch(Long id, Map<String, Object> patch, Long expectedVersion) {
+
+        logger.info("Patching one Patient!");
+
+        // A senha é validada ainda em texto puro (tamanho mínimo) e só o hash segue para o UPDATE
+        if (patch.get("password") instanceof String password) {
+            validator.validateValue(Patient.class, "password", password).stream().findFirst().ifPresent(violation -> {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "password: " + violation.getMessage());
+            });
+            patch = new HashMap<>(patch);
+            patch.put("password", passwordHashingServices.hash(password));
+        }
+
+        long version = mergePatchServices.apply(Patient.class, id, patch, expectedVersion, PATCHABLE);
+        if (patch.keySet().stream().anyMatch(INDEXED::contains)) {
+            eventPublisher.publishEvent(new PatientSavedEvent(id));
+        }
+        return version;
+    }
+
     @Transactional
     public void delete(Long id) {
 
         logger.info("Deleting one Patient!");
 
-        Patient entity = patientRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        patientRepository.delete(entity);
+        // Só marca o paciente; hospitais, documentos e arquivos saem depois no PatientPurgeServices
+        if (patientRepository.softDelete(id, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("No records found for this ID!");
+        }
+
+        // O filtro de excluídos dos hospitais é SQL puro: o Hibernate não sabe que a
+        // alteração no paciente os afeta, então as entradas em cache saem aqui
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Hospital.class);
+        cache.evictQueryRegion("hospitals-by-patient");
+        referenceDataServices.evictHospitalsOfPatient(id);
+        // Tokens já emitidos deixam de valer (o filtro não consulta o banco para saber da exclusão)
+        accessTokenServices.revokePatient(id);
+        eventPublisher.publishEvent(new PatientDeletedEvent(id));
+
+    }
 
+    private void checkVersion(Long current, Long expected) {
+        if (expected != null && !expected.equals(current)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "The patient was changed by someone else; reload and try again!");
+        }
     }
 
     //Função feita para mockar
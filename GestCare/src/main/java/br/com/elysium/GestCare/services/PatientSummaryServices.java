@@ -0,0 +1,70 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.FileListItem;
+import br.com.elysium.GestCare.dto.FileTypeCount;
+import br.com.elysium.GestCare.dto.HospitalFileCount;
+import br.com.elysium.GestCare.dto.PatientSummary;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Monta o painel do paciente em uma chamada: cabeçalho, hospitais com a contagem de
+ * documentos, contagem por tipo e os últimos documentos.
+ *
+ * São sempre quatro consultas, independente de quantos documentos o paciente tem: as
+ * contagens são feitas no banco (GROUP BY) em vez de mandar todos os File para o navegador.
+ */
+@Service
+public class PatientSummaryServices {
+
+    private Logger logger = Logger.getLogger(PatientSummaryServices.class.getName());
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Value("${gestcare.pagination.max-size:100}")
+    private int maxPageSize;
+
+    // Uma transação só leitura: as contagens e a lista dos últimos enxergam o mesmo estado
+    @Transactional(readOnly = true)
+    public PatientSummary summarize(Long patientId, int latest) {
+        logger.info("Summarizing one Patient!");
+
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+
+        List<HospitalFileCount> hospitals = hospitalRepository.countFilesByHospital(patientId);
+        List<FileTypeCount> fileTypes = fileRepository.countByFileType(patientId);
+        List<FileListItem> latestFiles = fileRepository.findFirstPageByPatientId(
+                patientId, Limit.of(CursorPage.size(latest, maxPageSize)));
+
+        long totalFiles = hospitals.stream().mapToLong(HospitalFileCount::files).sum();
+
+        return new PatientSummary(
+                patient.getId(),
+                patient.getName(),
+                patient.getLastName(),
+                totalFiles,
+                hospitals,
+                fileTypes,
+                latestFiles);
+    }
+}
@@ -0,0 +1,291 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.StoredFileRow;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.PreviewJob;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.PreviewJobRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Geração assíncrona de miniaturas (imagens e primeira página de PDFs).
+ *
+ * Cada conteúdo novo vira uma linha em preview_job; um pool pequeno e com fila
+ * limitada processa os jobs. Se a fila em memória estiver cheia (ou a aplicação
+ * reiniciar) o job continua PENDING no banco e é retomado pelo pollPending().
+ */
+@Service
+public class PreviewServices {
+
+    private static final int THUMBNAIL_SIZE = 320;
+    private static final int PDF_DPI = 72;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Set<String> SUPPORTED = Set.of("pdf", "jpg", "jpeg", "png", "gif", "bmp", "tif", "tiff");
+
+    private Logger logger = Logger.getLogger(PreviewServices.class.getName());
+
+    @Autowired
+    private PreviewJobRepository jobRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${gestcare.preview.workers:2}")
+    private int workers;
+
+    @Value("${gestcare.preview.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    // Miniaturas ficam no mesmo armazenamento, ao lado do conteúdo original
+    public static String previewKey(String contentHash) {
+        return contentHash + "-thumb";
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "preview-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        int recovered = jobRepository.transitionAll(PreviewJob.Status.RUNNING, PreviewJob.Status.PENDING);
+        if (recovered > 0) {
+            logger.info("Re-queued " + recovered + " interrupted preview jobs!");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        if (event.contentHash() == null || !supports(event.fileName())) {
+            return;
+        }
+
+        // Conteúdo repetido (deduplicado) já tem job: nada a fazer
+        if (jobRepository.findByContentHash(event.contentHash()).isPresent()) {
+            return;
+        }
+
+        PreviewJob job;
+        try {
+            job = jobRepository.save(new PreviewJob(event.contentHash(), event.fileName()));
+        } catch (DataIntegrityViolationException e) {
+            return;
+        }
+        submit(job.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${gestcare.preview.poll-interval-ms:30000}")
+    public void pollPending() {
+        for (PreviewJob job : jobRepository.findTop50ByStatusOrderByIdAsc(PreviewJob.Status.PENDING)) {
+            if (!submit(job.getId())) {
+                break;
+            }
+        }
+    }
+
+    public InputStream openPreview(Long fileId, Long patientId) throws IOException {
+        File file = fileRepository.findByIdAndPatientId(fileId, patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+
+        if (file.getContentHash() == null || !storage.exists(previewKey(file.getContentHash()))) {
+            throw new ResourceNotFoundException("No preview available for this ID!");
+        }
+        return storage.open(previewKey(file.getContentHash()));
+    }
+
+    public boolean supports(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot >= 0 && SUPPORTED.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+    private boolean submit(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Fila cheia: o job continua PENDING no banco e será retomado no próximo poll
+            return false;
+        }
+    }
+
+    private void run(Long jobId) {
+        if (jobRepository.transition(jobId, PreviewJob.Status.PENDING, PreviewJob.Status.RUNNING) == 0) {
+            return;
+        }
+
+        // Lido no primário (transação de escrita), onde o job acabou de virar RUNNING; numa
+        // réplica atrasada ele ainda não existiria ou estaria PENDING
+        PreviewJob job = transactionTemplate.execute(status -> jobRepository.findById(jobId).orElse(null));
+        if (job == null) {
+            return;
+        }
+
+        Path thumbnail = null;
+        try {
+            thumbnail = render(job);
+            storage.store(previewKey(job.getContentHash()), thumbnail);
+            job.setStatus(PreviewJob.Status.DONE);
+            job.setLastError(null);
+        } catch (Exception e) {
+            logger.warning("Could not render preview for " + job.getContentHash() + ": " + e.getMessage());
+            job.setAttempts(job.getAttempts() + 1);
+            job.setStatus(job.getAttempts() >= MAX_ATTEMPTS ? PreviewJob.Status.FAILED : PreviewJob.Status.PENDING);
+            String error = String.valueOf(e.getMessage());
+            job.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        } finally {
+            deleteQuietly(thumbnail);
+        }
+        jobRepository.save(job);
+    }
+
+    private Path render(PreviewJob job) throws IOException {
+        String encoding = transactionTemplate
+                .execute(status -> fileRepository.findStoredByContentHash(job.getContentHash(), Limit.of(1)))
+                .stream().findFirst()
+                .map(StoredFileRow::contentEncoding)
+                .orElse(null);
+        String key = ContentCodec.key(job.getContentHash(), encoding);
+
+        // Renderizadores precisam de um arquivo local sem compressão
+        Path source = null;
+        boolean temporary = encoding != null || !(storage instanceof LocalStorageBackend);
+        try {
+            if (temporary) {
+                source = Files.createTempFile("preview-src-", ".tmp");
+                try (InputStream in = ContentCodec.decode(storage.open(key), encoding)) {
+                    Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else {
+                source = ((LocalStorageBackend) storage).resolve(key);
+            }
+
+            BufferedImage image = job.getFileName().toLowerCase().endsWith(".pdf")
+                    ? renderFirstPage(source)
+                    : readImage(source);
+
+            Path target = Files.createTempFile("preview-", ".jpg");
+            ImageIO.write(scale(image), "jpg", target.toFile());
+            return target;
+        } finally {
+            if (temporary) {
+                deleteQuietly(source);
+            }
+        }
+    }
+
+    private BufferedImage renderFirstPage(Path pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF sem páginas");
+            }
+            return new PDFRenderer(document).renderImageWithDPI(0, PDF_DPI, ImageType.RGB);
+        }
+    }
+
+    // Lê a imagem já reduzida (subsampling): uma digitalização enorme não é decodificada inteira
+    private BufferedImage readImage(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Formato de imagem não suportado");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int largest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, largest / (THUMBNAIL_SIZE * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warning("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.model.FileType;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.repositories.FileTypeRepository;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Cache em memória dos dados de referência usados em todo upload.
+ *
+ * FileType é uma tabela pequena e quase estática: é carregada inteira na subida.
+ * Hospital fica num LRU limitado com expiração (TTL), invalidado pelo HospitalServices
+ * (update/delete) e pelo PatientServices (delete em cascata).
+ *
+ * As entidades devolvidas estão desanexadas: servem como referência para novos File
+ * e para a resposta JSON, mas não devem ser alteradas.
+ */
+@Service
+public class ReferenceDataServices {
+
+    private Logger logger = Logger.getLogger(ReferenceDataServices.class.getName());
+
+    @Autowired
+    private FileTypeRepository fileTypeRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Value("${gestcare.cache.hospital.max-size:1000}")
+    private int hospitalMaxSize;
+
+    @Value("${gestcare.cache.hospital.ttl-seconds:300}")
+    private long hospitalTtlSeconds;
+
+    private final Map<Long, FileType> fileTypes = new ConcurrentHashMap<>();
+
+    // LinkedHashMap em ordem de acesso: o menos usado sai primeiro quando o limite é atingido
+    // ReentrantLock em vez de synchronized: não prende a thread virtual à thread do sistema
+    private final ReentrantLock hospitalsLock = new ReentrantLock();
+
+    private final LinkedHashMap<Long, CachedHospital> hospitals = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedHospital> eldest) {
+            return size() > hospitalMaxSize;
+        }
+    };
+
+    @PostConstruct
+    public void preload() {
+        refreshFileTypes();
+        logger.info("Preloaded " + fileTypes.size() + " file types!");
+    }
+
+    public void refreshFileTypes() {
+        Map<Long, FileType> loaded = new ConcurrentHashMap<>();
+        for (FileType fileType : fileTypeRepository.findAll()) {
+            loaded.put(fileType.getId(), fileType);
+        }
+        fileTypes.keySet().retainAll(loaded.keySet());
+        fileTypes.putAll(loaded);
+    }
+
+    public Optional<FileType> findFileType(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        FileType cached = fileTypes.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        // Tipo cadastrado depois da subida
+        Optional<FileType> loaded = fileTypeRepository.findById(id);
+        loaded.ifPresent(fileType -> fileTypes.put(id, fileType));
+        return loaded;
+    }
+
+    public Optional<Hospital> findHospital(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        hospitalsLock.lock();
+        try {
+            CachedHospital cached = hospitals.get(id);
+            if (cached != null) {
+                if (cached.expiresAt() - now > 0) {
+                    return Optional.of(cached.hospital());
+                }
+                hospitals.remove(id);
+            }
+        } finally {
+            hospitalsLock.unlock();
+        }
+
+        // Consulta fora do lock: um hospital lento não trava os demais uploads
+        Optional<Hospital> loaded = hospitalRepository.findById(id);
+        loaded.ifPresent(hospital -> {
+            hospitalsLock.lock();
+            try {
+                hospitals.put(id, new CachedHospital(hospital, now + hospitalTtlSeconds * 1_000_000_000L));
+            } finally {
+                hospitalsLock.unlock();
+            }
+        });
+        return loaded;
+    }
+
+    public void evictHospital(Long id) {
+        removeHospital(id);
+        // Remove de novo após o commit: uma leitura concorrente pode ter recolocado a versão antiga
+        afterCommit(() -> removeHospital(id));
+    }
+
+    public void evictHospitalsOfPatient(Long patientId) {
+        removeHospitalsOfPatient(patientId);
+        afterCommit(() -> removeHospitalsOfPatient(patientId));
+    }
+
+    private void removeHospital(Long id) {
+        hospitalsLock.lock();
+        try {
+            hospitals.remove(id);
+        } finally {
+            hospitalsLock.unlock();
+        }
+    }
+
+    private void removeHospitalsOfPatient(Long patientId) {
+        hospitalsLock.lock();
+        try {
+            hospitals.values().removeIf(cached -> cached.hospital().getPatient() != null
+                    && cached.hospital().getPatient().getId() == patientId);
+        } finally {
+            hospitalsLock.unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record CachedHospital(Hospital hospital, long expiresAt) {
+    }
+}
@@ -0,0 +1,347 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.dto.StoredFileRow;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Confere o armazenamento local com a tabela file, nos dois sentidos:
+ *  - conteúdo em disco sem nenhum File que o referencie (órfão);
+ *  - File cujo conteúdo não existe mais no disco.
+ *
+ * O disco é percorrido em paralelo pelos 256 diretórios de primeiro nível (ab/); para
+ * cada um os hashes referenciados vêm do banco em páginas, então a memória fica limitada
+ * ao tamanho de um diretório. A leitura do disco é limitada a max-files-per-second para
+ * não competir com as requisições.
+ *
+ * O resultado vai para reconciler/report-<execução>.txt; com quarantine=true os órfãos
+ * em disco são movidos para reconciler/quarantine/<execução>/ (nada é apagado). Registros
+ * sem conteúdo só são listados no relatório. O progresso fica nas métricas
+ * gestcare.reconciler.* (/actuator/metrics).
+ */
+@Service
+public class StorageReconcilerServices {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final Pattern STORED_KEY = Pattern.compile("([0-9a-f]{64})(\\.gz|-thumb)?");
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private Logger logger = Logger.getLogger(StorageReconcilerServices.class.getName());
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileServices fileServices;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${gestcare.reconciler.enabled:false}")
+    private boolean enabled;
+
+    @Value("${gestcare.reconciler.parallelism:2}")
+    private int parallelism;
+
+    @Value("${gestcare.reconciler.max-files-per-second:500}")
+    private int maxFilesPerSecond;
+
+    // Conteúdo gravado há menos tempo que isso nunca é considerado órfão (upload em andamento)
+    @Value("${gestcare.reconciler.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${gestcare.reconciler.quarantine:false}")
+    private boolean quarantine;
+
+    @Value("${gestcare.reconciler.dir:./reconciler}")
+    private String reconcilerDir;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    private final AtomicLong shardsDone = new AtomicLong();
+    private final AtomicLong filesScanned = new AtomicLong();
+    private final AtomicLong orphanFiles = new AtomicLong();
+    private final AtomicLong missingContent = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final AtomicLong lastRunSeconds = new AtomicLong();
+
+    @PostConstruct
+    public void registerMetrics() {
+        gauge("gestcare.reconciler.running", running, flag -> flag.get() ? 1 : 0);
+        gauge("gestcare.reconciler.shards.done", shardsDone, AtomicLong::get);
+        gauge("gestcare.reconciler.files.scanned", filesScanned, AtomicLong::get);
+        gauge("gestcare.reconciler.orphan.files", orphanFiles, AtomicLong::get);
+        gauge("gestcare.reconciler.missing.content", missingContent, AtomicLong::get);
+        gauge("gestcare.reconciler.quarantined", quarantined, AtomicLong::get);
+        gauge("gestcare.reconciler.last.run.seconds", lastRunSeconds, AtomicLong::get);
+    }
+
+    @Scheduled(cron = "${gestcare.reconciler.cron:0 0 3 * * *}")
+    public void reconcileOnSchedule() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    public void reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Storage reconciliation already running!");
+            return;
+        }
+
+        String runId = RUN_ID.format(LocalDateTime.now());
+        long started = System.nanoTime();
+        shardsDone.set(0);
+        filesScanned.set(0);
+        orphanFiles.set(0);
+        missingContent.set(0);
+        quarantined.set(0);
+        nextSlot.set(System.nanoTime());
+
+        logger.info("Starting storage reconciliation " + runId + "!");
+
+        try {
+            Path dir = Files.createDirectories(Path.of(reconcilerDir).toAbsolutePath().normalize());
+            try (BufferedWriter report = Files.newBufferedWriter(dir.resolve("report-" + runId + ".txt"),
+                    StandardCharsets.UTF_8)) {
+                Run run = new Run(report, dir.resolve("quarantine").resolve(runId));
+
+                if (storage instanceof LocalStorageBackend local) {
+                    reconcileShards(local, run);
+                } else {
+                    // Sem listagem de objetos no backend remoto: só os registros antigos são conferidos
+                    logger.info("Storage reconciliation only walks the local storage; skipping content keys.");
+                }
+                reconcileLegacy(run);
+            }
+        } catch (Exception e) {
+            logger.warning("Storage reconciliation " + runId + " failed: " + e.getMessage());
+        } finally {
+            lastRunSeconds.set(Duration.ofNanos(System.nanoTime() - started).toSeconds());
+            running.set(false);
+        }
+
+        logger.info("Storage reconciliation " + runId + " finished: " + filesScanned.get() + " files scanned, "
+                + orphanFiles.get() + " orphan files, " + missingContent.get() + " missing contents, "
+                + quarantined.get() + " quarantined.");
+    }
+
+    private void reconcileShards(LocalStorageBackend local, Run run) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                workerThreads.ioBound("reconciler", Thread.MIN_PRIORITY));
+
+        try {
+            List<Future<?>> shards = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                String prefix = String.format("%02x", i);
+                shards.add(executor.submit(() -> {
+                    reconcileShard(prefix, local.getRoot().resolve(prefix), run);
+                    shardsDone.incrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> shard : shards) {
+                shard.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void reconcileShard(String prefix, Path shardDir, Run run) throws IOException {
+        Set<String> referenced = referencedHashes(prefix);
+        Set<String> present = new HashSet<>();
+
+        if (Files.isDirectory(shardDir)) {
+            try (Stream<Path> paths = Files.walk(shardDir, 2)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    if (!Files.isRegularFile(path)) {
+                        continue;
+                    }
+                    throttle();
+                    filesScanned.incrementAndGet();
+
+                    Matcher key = STORED_KEY.matcher(path.getFileName().toString());
+                    if (!key.matches()) {
+                        continue;
+                    }
+                    String hash = key.group(1);
+                    // Miniatura não conta como conteúdo presente
+                    if (!"-thumb".equals(key.group(2))) {
+                        present.add(hash);
+                    }
+                    if (!referenced.contains(hash) && olderThanGrace(path)) {
+                        handleOrphan(hash, path, run);
+                    }
+                }
+            }
+        }
+
+        for (String hash : referenced) {
+            if (!present.contains(hash)) {
+                handleMissing(hash, run);
+            }
+        }
+    }
+
+    // Hashes referenciados com o prefixo, lidos do banco em páginas
+    private Set<String> referencedHashes(String prefix) {
+        Set<String> hashes = new HashSet<>();
+        String after = prefix;
+        String to = prefix + "g";
+        List<String> page;
+        do {
+            page = fileRepository.findContentHashesBetween(after, to, Limit.of(PAGE_SIZE));
+            hashes.addAll(page);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == PAGE_SIZE);
+        return hashes;
+    }
+
+    private void handleOrphan(String hash, Path path, Run run) throws IOException {
+        ReentrantLock lock = fileServices.contentLock(hash);
+        lock.lock();
+        try {
+            // Pode ter sido referenciado depois que a página foi lida
+            if (fileRepository.existsByContentHash(hash) || !Files.exists(path)) {
+                return;
+            }
+
+            orphanFiles.incrementAndGet();
+            if (quarantine) {
+                Files.createDirectories(run.quarantineDir());
+                Files.move(path, run.quarantineDir().resolve(path.getFileName()));
+                quarantined.incrementAndGet();
+                run.write("QUARANTINED " + path);
+            } else {
+                run.write("ORPHAN " + path);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void handleMissing(String hash, Run run) throws IOException {
+        ReentrantLock lock = fileServices.contentLock(hash);
+        lock.lock();
+        try {
+            if (storage.exists(ContentCodec.key(hash, null)) || storage.exists(ContentCodec.key(hash, ContentCodec.GZIP))) {
+                return;
+            }
+            List<Long> ids = fileRepository.findIdsByContentHash(hash);
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            missingContent.incrementAndGet();
+            run.write("MISSING " + hash + " files=" + ids);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registros anteriores ao armazenamento por hash apontam direto para um caminho
+    private void reconcileLegacy(Run run) throws IOException {
+        long lastId = 0;
+        List<StoredFileRow> page = fileRepository.findLegacyPage(lastId, Limit.of(PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (StoredFileRow file : page) {
+                throttle();
+                if (file.filePath() == null || !Files.exists(Path.of(file.filePath()))) {
+                    missingContent.incrementAndGet();
+                    run.write("MISSING " + file.filePath() + " files=[" + file.id() + "]");
+                }
+            }
+            lastId = page.get(page.size() - 1).id();
+            page = fileRepository.findLegacyPage(lastId, Limit.of(PAGE_SIZE));
+        }
+    }
+
+    private boolean olderThanGrace(Path path) throws IOException {
+        long age = System.currentTimeMillis() - Files.getLastModifiedTime(path).toMillis();
+        return age > Duration.ofMinutes(graceMinutes).toMillis();
+    }
+
+    // Espaça os acessos ao disco (somando todas as threads) em intervalos fixos
+    private void throttle() {
+        if (maxFilesPerSecond <= 0) {
+            return;
+        }
+        long interval = 1_000_000_000L / maxFilesPerSecond;
+        long now = System.nanoTime();
+        long slot = nextSlot.getAndUpdate(previous -> Math.max(previous, now) + interval);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <T> void gauge(String name, T state, ToDoubleFunction<T> value) {
+        Gauge.builder(name, state, value).register(meterRegistry);
+    }
+
+    // Escrita em disco dentro da seção crítica: com synchronized a thread virtual ficaria presa
+    private record Run(BufferedWriter report, Path quarantineDir, ReentrantLock lock) {
+        Run(BufferedWriter report, Path quarantineDir) {
+            this(report, quarantineDir, new ReentrantLock());
+        }
+
+        void write(String line) throws IOException {
+            lock.lock();
+            try {
+                report.write(line);
+                report.newLine();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
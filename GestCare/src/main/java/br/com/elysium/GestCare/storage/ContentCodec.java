@@ -0,0 +1,27 @@
+package br.com.elysium.GestCare.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compressão em repouso: conteúdo gravado comprimido usa a chave "<hash>.gz",
+ * para nunca ser confundido com a versão sem compressão do mesmo hash.
+ */
+public final class ContentCodec {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentCodec() {}
+
+    public static String key(String contentHash, String encoding) {
+        return GZIP.equals(encoding) ? contentHash + ".gz" : contentHash;
+    }
+
+    // Descompressão em streaming: nada é descomprimido para a memória ou para o disco antes
+    public static InputStream decode(InputStream in, String encoding) throws IOException {
+        return GZIP.equals(encoding) ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.elysium.GestCare.storage;
+
+import br.com.elysium.GestCare.dto.StoredFileRow;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Migra os arquivos do layout antigo (tudo direto em uploads/, pelo nome ou pelo hash)
+ * para o StorageBackend configurado e reescreve File.filePath.
+ *
+ * Executar uma vez, em janela de manutenção, com:
+ *   java -jar GestCare.jar --gestcare.storage.migrate=true
+ *
+ * É idempotente: registros já migrados são ignorados, então pode ser repetida
+ * se for interrompida no meio.
+ */
+@Component
+@ConditionalOnProperty(name = "gestcare.storage.migrate", havingValue = "true")
+public class FlatLayoutMigration implements ApplicationRunner {
+
+    private static final int PAGE_SIZE = 500;
+
+    private Logger logger = Logger.getLogger(FlatLayoutMigration.class.getName());
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        logger.info("Migrating stored files to the sharded layout!");
+
+        long lastId = 0;
+        int migrated = 0;
+        List<StoredFileRow> page = fileRepository.findStoredPage(lastId, Limit.of(PAGE_SIZE));
+
+        while (!page.isEmpty()) {
+            for (StoredFileRow file : page) {
+                try {
+                    if (migrate(file)) {
+                        migrated++;
+                    }
+                } catch (IOException e) {
+                    logger.warning("Could not migrate File " + file.id() + ": " + e.getMessage());
+                }
+            }
+            lastId = page.get(page.size() - 1).id();
+            page = fileRepository.findStoredPage(lastId, Limit.of(PAGE_SIZE));
+        }
+
+        logger.info("Storage migration finished: " + migrated + " files migrated.");
+    }
+
+    private boolean migrate(StoredFileRow file) throws IOException {
+
+        String hash = file.contentHash();
+        if (hash != null && storage.location(ContentCodec.key(hash, file.contentEncoding())).equals(file.filePath())) {
+            return false;
+        }
+
+        String oldPath = file.filePath();
+        Path source = Path.of(oldPath);
+
+        if (!Files.exists(source)) {
+            // Outro registro com o mesmo conteúdo pode já ter levado o arquivo
+            if (hash == null || !storage.exists(hash)) {
+                logger.warning("Stored file not found for File " + file.id() + ": " + oldPath);
+                return false;
+            }
+        } else {
+            if (hash == null) {
+                hash = sha256(source);
+            }
+            storage.store(hash, source);
+        }
+
+        // Registros antigos com o mesmo nome apontavam para o mesmo arquivo
+        fileRepository.relocate(oldPath, hash, storage.location(hash), storage.size(hash));
+        return true;
+    }
+
+    private String sha256(Path source) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.elysium.GestCare.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+/**
+ * Armazenamento em um serviço compatível com S3 (AWS, MinIO, Ceph...).
+ *
+ * Usa apenas o HttpClient do JDK com assinatura AWS Signature V4 e URLs no estilo
+ * path (endpoint/bucket/chave), o que permite apontar para um MinIO local nos testes.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter AMZ_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+
+    public S3StorageBackend(String endpoint, String bucket, String region, String accessKey, String secretKey) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        if (!exists(key)) {
+            HttpResponse<Void> response = send("PUT", key, HttpRequest.BodyPublishers.ofFile(source),
+                    HttpResponse.BodyHandlers.discarding());
+            check(response, key);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, key);
+        return true;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding());
+        check(response, key);
+        return response.headers().firstValueAsLong("Content-Length").orElse(0);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", key, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            check(response, key);
+        }
+        return response.body();
+    }
+
+    @Override
+    public InputStream openRange(String key, long start, long length) throws IOException {
+        HttpResponse<InputStream> response = send("GET", key, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofInputStream(), "bytes=" + start + "-" + (start + length - 1));
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            check(response, key);
+        }
+        return response.body();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<Void> response = send("DELETE", key, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 404) {
+            check(response, key);
+        }
+    }
+
+    @Override
+    public String location(String key) {
+        return "s3://" + bucket + "/" + key;
+    }
+
+    private <T> HttpResponse<T> send(String method,
+                                     String key,
+                                     HttpRequest.BodyPublisher body,
+                                     HttpResponse.BodyHandler<T> handler) throws IOException {
+        return send(method, key, body, handler, null);
+    }
+
+    private <T> HttpResponse<T> send(String method,
+                                     String key,
+                                     HttpRequest.BodyPublisher body,
+                                     HttpResponse.BodyHandler<T> handler,
+                                     String range) throws IOException {
+
+        String path = "/" + bucket + "/" + key;
+        URI uri = URI.create(endpoint + path);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = AMZ_DATE.format(now);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .method(method, body)
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", authorization(method, path, uri.getAuthority(), amzDate, AMZ_DAY.format(now)));
+        if (range != null) {
+            request.header("Range", range);
+        }
+
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Requisição ao armazenamento interrompida", e);
+        }
+    }
+
+    // AWS Signature Version 4 (cabeçalho Authorization)
+    private String authorization(String method, String path, String host, String amzDate, String day) {
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n"
+                + path + "\n"
+                + "\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n"
+                + "\n"
+                + signedHeaders + "\n"
+                + UNSIGNED_PAYLOAD;
+
+        String scope = day + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), day);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders
+                + ", Signature=" + signature;
+    }
+
+    private void check(HttpResponse<?> response, String key) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Armazenamento S3 respondeu HTTP " + response.statusCode() + " para " + key);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.elysium.GestCare.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Onde os bytes dos documentos ficam guardados.
+ *
+ * As chaves são os hashes SHA-256 do conteúdo (ver FileServices), então uma chave
+ * nunca muda de conteúdo: store() de uma chave existente não precisa regravar nada.
+ */
+public interface StorageBackend {
+
+    // Move o conteúdo de source para o armazenamento; source deixa de existir
+    void store(String key, Path source) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    // Lê apenas [start, start + length) do conteúdo (requisições HTTP Range)
+    default InputStream openRange(String key, long start, long length) throws IOException {
+        InputStream in = open(key);
+        in.skipNBytes(start);
+        return new BoundedInputStream(in, length);
+    }
+
+    void delete(String key) throws IOException;
+
+    // Valor gravado em File.filePath: indica onde o conteúdo está neste backend
+    String location(String key);
+}
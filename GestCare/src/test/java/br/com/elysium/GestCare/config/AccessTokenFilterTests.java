@@ -0,0 +1,97 @@
+package br.com.elysium.GestCare.config;
+
+import br.com.elysium.GestCare.services.AccessTokenServices;
+import br.com.elysium.GestCare.services.AccessTokenServices.AccessToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenFilterTests {
+
+    private final AccessTokenServices accessTokenServices = mock(AccessTokenServices.class);
+    private final AccessTokenFilter filter = new AccessTokenFilter(accessTokenServices, "chave-de-administracao");
+
+    @BeforeEach
+    void setUp() {
+        when(accessTokenServices.verify("valido")).thenReturn(Optional.of(new AccessToken(7L, "id", 0, Long.MAX_VALUE)));
+        when(accessTokenServices.verify("invalido")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void bearerTokenSetsThePatient() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/patient/7");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer valido");
+
+        MockHttpServletResponse response = run(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(request.getAttribute(AccessTokenFilter.PATIENT_ID)).isEqualTo(7L);
+    }
+
+    @Test
+    void missingOrInvalidTokenIsUnauthorized() throws Exception {
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/patient/7");
+        invalid.addHeader(HttpHeaders.AUTHORIZATION, "Bearer invalido");
+
+        assertThat(run(new MockHttpServletRequest("GET", "/patient/7")).getStatus()).isEqualTo(401);
+        assertThat(run(invalid).getStatus()).isEqualTo(401);
+        assertThat(run(invalid).getHeader(HttpHeaders.WWW_AUTHENTICATE)).isEqualTo("Bearer");
+    }
+
+    // Links abertos pelo navegador (download e miniatura) não mandam cabeçalhos
+    @Test
+    void queryTokenIsAcceptedForContentAndPreview() throws Exception {
+        for (String path : new String[]{"/file/12/content", "/file/12/preview"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.setParameter("access_token", "valido");
+
+            assertThat(run(request).getStatus()).isEqualTo(200);
+            assertThat(request.getAttribute(AccessTokenFilter.PATIENT_ID)).isEqualTo(7L);
+        }
+    }
+
+    @Test
+    void queryTokenIsIgnoredEverywhereElse() throws Exception {
+        for (String path : new String[]{"/patient/7", "/file/patient/7", "/file/12", "/file/12/content/extra"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.setParameter("access_token", "valido");
+
+            assertThat(run(request).getStatus()).as(path).isEqualTo(401);
+        }
+
+        MockHttpServletRequest delete = new MockHttpServletRequest("DELETE", "/file/12/content");
+        delete.setParameter("access_token", "valido");
+        assertThat(run(delete).getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void adminKeyPassesWithoutPatient() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hospital");
+        request.addHeader("X-Admin-Key", "chave-de-administracao");
+
+        assertThat(run(request).getStatus()).isEqualTo(200);
+        assertThat(request.getAttribute(AccessTokenFilter.PATIENT_ID)).isNull();
+    }
+
+    @Test
+    void loginAndSignUpArePublic() throws Exception {
+        assertThat(run(new MockHttpServletRequest("POST", "/auth/login")).getStatus()).isEqualTo(200);
+        assertThat(run(new MockHttpServletRequest("POST", "/patient")).getStatus()).isEqualTo(200);
+        assertThat(run(new MockHttpServletRequest("GET", "/patient")).getStatus()).isEqualTo(401);
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.elysium.GestCare.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HibernateCacheConfigTests {
+
+    private final HibernateCacheConfig config = new HibernateCacheConfig();
+
+    // Dois contextos na mesma JVM (testes, restart do devtools) criam as mesmas regiões
+    @Test
+    void eachContextGetsItsOwnCacheManager() {
+        try (CacheManager first = config.hibernateCacheManager(new SimpleMeterRegistry(), 100, 60);
+             CacheManager second = config.hibernateCacheManager(new SimpleMeterRegistry(), 100, 60)) {
+
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getCache("hospital")).isNotNull();
+
+            first.getCache("hospital").put(1L, "cached");
+            assertThat(second.getCache("hospital").get(1L)).isNull();
+        }
+    }
+
+    @Test
+    void closingOneContextLeavesTheOtherUsable() {
+        CacheManager first = config.hibernateCacheManager(new SimpleMeterRegistry(), 100, 60);
+        try (CacheManager second = config.hibernateCacheManager(new SimpleMeterRegistry(), 100, 60)) {
+            first.close();
+
+            second.getCache("patient").put(1L, "cached");
+            assertThat(second.getCache("patient").get(1L)).isEqualTo("cached");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.elysium.GestCare.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dois bancos H2 em memória fazem o papel de primário e réplica; cada um sabe dizer quem é
+class ReplicaRoutingDataSourceTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        routing = routing(database("primary"), database("replica"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ReplicaRoutingDataSource.forcePrimary(false);
+        routing.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnlyTarget()).isEqualTo("replica");
+        assertThat(connections("replica-1")).isEqualTo(1);
+    }
+
+    @Test
+    void writesStayOnThePrimary() {
+        assertThat(readWriteTarget()).isEqualTo("primary");
+        assertThat(connections("replica-1")).isZero();
+    }
+
+    // Janela de read-your-writes: mesmo a leitura somente leitura vai para o primário
+    @Test
+    void forcePrimaryOverridesReadOnly() {
+        ReplicaRoutingDataSource.forcePrimary(true);
+        assertThat(readOnlyTarget()).isEqualTo("primary");
+
+        ReplicaRoutingDataSource.forcePrimary(false);
+        assertThat(readOnlyTarget()).isEqualTo("replica");
+    }
+
+    // Como os workers pós-commit (índice de busca, miniaturas) leem: os métodos readOnly do
+    // repositório participam da transação de escrita e não trocam de conexão
+    @Test
+    void readOnlyCallInsideAReadWriteTransactionStaysOnThePrimary() {
+        String target = readWrite.execute(status -> readOnly.execute(inner -> whoAmI()));
+
+        assertThat(target).isEqualTo("primary");
+        assertThat(connections("replica-1")).isZero();
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToThePrimary() throws Exception {
+        routing.close();
+        routing = routing(database("primary"), new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE"));
+
+        assertThat(readOnlyTarget()).isEqualTo("primary");
+        assertThat(readOnlyTarget()).isEqualTo("primary");
+        // Depois da primeira falha a réplica sai do rodízio e não é mais tentada
+        assertThat(meterRegistry.get("gestcare.datasource.replica.healthy").gauge().value()).isZero();
+    }
+
+    @Test
+    void replicaReturnsToRotationWhenHealthy() throws Exception {
+        String name = "late-" + UUID.randomUUID();
+        routing.close();
+        routing = routing(database("primary"), new DriverManagerDataSource("jdbc:h2:mem:" + name + ";IFEXISTS=TRUE"));
+        routing.checkReplicas();
+        assertThat(readOnlyTarget()).isEqualTo("primary");
+
+        // A réplica sobe depois da aplicação
+        database("replica", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        routing.checkReplicas();
+
+        assertThat(readOnlyTarget()).isEqualTo("replica");
+    }
+
+    private ReplicaRoutingDataSource routing(DataSource primary, DataSource replica) {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                primary, List.of(new ReplicaRoutingDataSource.Replica("replica-1", replica)), meterRegistry);
+        // Mesmo arranjo do ReplicaDataSourceConfig: a conexão só é pedida no primeiro SQL
+        DataSource lazy = new LazyConnectionDataSourceProxy(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(lazy);
+        jdbc = new JdbcTemplate(lazy);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return dataSource;
+    }
+
+    private String readOnlyTarget() {
+        return readOnly.execute(status -> whoAmI());
+    }
+
+    private String readWriteTarget() {
+        return readWrite.execute(status -> whoAmI());
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT name FROM instance", String.class);
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("gestcare.datasource.connections").tag("target", target).counter().count();
+    }
+
+    private static DataSource database(String name) {
+        return database(name, "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private static DataSource database(String name, String url) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE instance (name VARCHAR(20))");
+        setup.update("INSERT INTO instance VALUES (?)", name);
+        return dataSource;
+    }
+}
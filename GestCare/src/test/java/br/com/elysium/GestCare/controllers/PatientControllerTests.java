@@ -0,0 +1,136 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.dto.CursorPage;
+import br.com.elysium.GestCare.dto.PatientSearchHit;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.services.PatientServices;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PatientControllerTests {
+
+    private static final String PATIENT_JSON = """
+            {"id": 5, "name": "Ana", "lastName": "Souza", "cpf": "12345678900", "birthDate": "2000-01-01",
+             "email": "ana@exemplo.com", "password": "segredo123", "gender": 2}
+            """;
+
+    private final PatientServices service = mock(PatientServices.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        PatientController controller = new PatientController();
+        ReflectionTestUtils.setField(controller, "service", service);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    // Clientes antigos (?name=) continuam recebendo a lista de pacientes
+    @Test
+    void nameKeepsTheOldListShape() throws Exception {
+        Patient patient = new Patient();
+        patient.setId(3L);
+        patient.setName("Ana");
+        when(service.findByPatientName("Ana")).thenReturn(List.of(patient));
+
+        mvc.perform(get("/patient/search").param("name", "Ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].name").value("Ana"));
+    }
+
+    @Test
+    void qReturnsRankedCursorPages() throws Exception {
+        when(service.search(eq("ana"), any(), anyInt())).thenReturn(new CursorPage<>(
+                List.of(new PatientSearchHit(3L, "Ana", "Souza", "12345678900", "ana@exemplo.com", 2.5f)), null));
+
+        mvc.perform(get("/patient/search").param("q", "ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.items[0].score").value(2.5));
+    }
+
+    @Test
+    void qWinsWhenBothAreSent() throws Exception {
+        when(service.search(eq("ana"), any(), anyInt())).thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(get("/patient/search").param("q", "ana").param("name", "Ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isArray());
+    }
+
+    @Test
+    void ifMatchVersionGoesToThePatch() throws Exception {
+        when(service.patch(eq(5L), any(), eq(3L))).thenReturn(4L);
+
+        mvc.perform(patch("/patient/5").header(HttpHeaders.IF_MATCH, "W/\"5-3\"")
+                        .contentType("application/merge-patch+json").content("{\"name\":\"Ana\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"5-4\""));
+    }
+
+    // Proxies podem tirar o W/; "*" não exige versão
+    @Test
+    void strongAndWildcardIfMatchAreAccepted() throws Exception {
+        when(service.patch(eq(5L), any(), eq(3L))).thenReturn(4L);
+        when(service.patch(eq(5L), any(), isNull())).thenReturn(4L);
+
+        mvc.perform(patch("/patient/5").header(HttpHeaders.IF_MATCH, "\"5-3\"")
+                        .contentType("application/merge-patch+json").content("{}"))
+                .andExpect(status().isNoContent());
+        mvc.perform(patch("/patient/5").header(HttpHeaders.IF_MATCH, "*")
+                        .contentType("application/merge-patch+json").content("{}"))
+                .andExpect(status().isNoContent());
+    }
+
+    // O ETag de outro paciente (W/"15-3" num /patient/5) não vale como versão do 5
+    @Test
+    void ifMatchOfAnotherPatientIsRejected() throws Exception {
+        mvc.perform(patch("/patient/5").header(HttpHeaders.IF_MATCH, "W/\"15-3\"")
+                        .contentType("application/merge-patch+json").content("{}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(service, never()).patch(any(), any(), any());
+    }
+
+    @Test
+    void malformedIfMatchIsRejected() throws Exception {
+        for (String ifMatch : List.of("W/\"5-\"", "5-3", "W/\"abc-3\"", "W/\"1-5-3\"")) {
+            mvc.perform(patch("/patient/5").header(HttpHeaders.IF_MATCH, ifMatch)
+                            .contentType("application/merge-patch+json").content("{}"))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        verify(service, never()).patch(any(), any(), any());
+    }
+
+    @Test
+    void putChecksTheIfMatchAgainstTheBodyId() throws Exception {
+        mvc.perform(put("/patient").header(HttpHeaders.IF_MATCH, "W/\"6-3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(service, never()).update(any(), any());
+    }
+}
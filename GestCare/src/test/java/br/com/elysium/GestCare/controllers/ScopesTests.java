@@ -0,0 +1,49 @@
+package br.com.elysium.GestCare.controllers;
+
+import br.com.elysium.GestCare.config.AccessTokenFilter;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScopesTests {
+
+    @Test
+    void patientMayOnlyReachItsOwnRecords() {
+        MockHttpServletRequest request = patient(7L);
+
+        assertThatCode(() -> Scopes.requirePatient(request, 7L)).doesNotThrowAnyException();
+        // Registro de outro paciente responde como inexistente
+        assertThatThrownBy(() -> Scopes.requirePatient(request, 8L)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Scopes.patientOf(request)).isEqualTo(7L);
+    }
+
+    @Test
+    void patientIsForbiddenFromAdminOperations() {
+        assertThatThrownBy(() -> Scopes.requireAdmin(patient(7L)))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    // Chave de administração (ou autenticação desligada): nenhum paciente na requisição
+    @Test
+    void requestWithoutPatientIsNotRestricted() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertThatCode(() -> Scopes.requirePatient(request, 8L)).doesNotThrowAnyException();
+        assertThatCode(() -> Scopes.requireAdmin(request)).doesNotThrowAnyException();
+        assertThat(Scopes.patientOf(request)).isNull();
+    }
+
+    private static MockHttpServletRequest patient(long patientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(AccessTokenFilter.PATIENT_ID, patientId);
+        return request;
+    }
+}
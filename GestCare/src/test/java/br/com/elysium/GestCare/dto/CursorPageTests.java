@@ -0,0 +1,87 @@
+package br.com.elysium.GestCare.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPageTests {
+
+    private record Row(LocalDate fileDate, Long id) {
+    }
+
+    // Posição com várias partes (data|id, como na listagem de documentos) sobrevive à ida e volta
+    @Test
+    void cursorRoundTrips() {
+        String cursor = CursorPage.encode("2024-03-01|42");
+
+        Row after = CursorPage.decode(cursor, parts -> new Row(LocalDate.parse(parts[0]), Long.valueOf(parts[1])));
+
+        assertThat(after).isEqualTo(new Row(LocalDate.of(2024, 3, 1), 42L));
+        // Seguro para ir na query string sem escape
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertThat(afterId(null)).isNull();
+        assertThat(afterId(" ")).isNull();
+    }
+
+    // Cursor adulterado é erro do cliente, não 500
+    @Test
+    void malformedCursorIsBadRequest() {
+        for (String cursor : List.of("@@@", CursorPage.encode("abc"), CursorPage.encode("2024-03-01"))) {
+            assertThatThrownBy(() -> CursorPage.decode(cursor,
+                    parts -> new Row(LocalDate.parse(parts[0]), Long.valueOf(parts[1]))))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                    .isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // A linha extra (size + 1) só indica que há próxima página; o cursor aponta para o último item entregue
+    @Test
+    void nextPointsAtTheLastReturnedRow() {
+        List<Row> rows = List.of(
+                new Row(LocalDate.of(2024, 1, 1), 1L),
+                new Row(LocalDate.of(2024, 1, 2), 2L),
+                new Row(LocalDate.of(2024, 1, 3), 3L));
+
+        CursorPage<Row> page = CursorPage.of(rows, 2, row -> row.fileDate() + "|" + row.id());
+
+        assertThat(page.items()).containsExactly(rows.get(0), rows.get(1));
+        assertThat(parts(page.next())).containsExactly("2024-01-02", "2");
+    }
+
+    @Test
+    void lastPageHasNoNext() {
+        List<Row> rows = List.of(new Row(LocalDate.of(2024, 1, 1), 1L), new Row(LocalDate.of(2024, 1, 2), 2L));
+
+        CursorPage<Row> page = CursorPage.of(rows, 2, row -> String.valueOf(row.id()));
+
+        assertThat(page.items()).isEqualTo(rows);
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void sizeIsClampedToTheConfiguredRange() {
+        assertThat(CursorPage.size(0, 100)).isEqualTo(1);
+        assertThat(CursorPage.size(-5, 100)).isEqualTo(1);
+        assertThat(CursorPage.size(20, 100)).isEqualTo(20);
+        assertThat(CursorPage.size(5000, 100)).isEqualTo(100);
+    }
+
+    private static Long afterId(String cursor) {
+        return CursorPage.decode(cursor, parts -> Long.valueOf(parts[0]));
+    }
+
+    private static String[] parts(String cursor) {
+        return CursorPage.decode(cursor, parts -> parts);
+    }
+}
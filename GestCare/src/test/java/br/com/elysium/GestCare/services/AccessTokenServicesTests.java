@@ -0,0 +1,136 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.model.RevokedToken;
+import br.com.elysium.GestCare.repositories.RevokedTokenRepository;
+import br.com.elysium.GestCare.services.AccessTokenServices.AccessToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenServicesTests {
+
+    private static final String SECRET = "segredo-de-teste-com-pelo-menos-32-bytes";
+
+    private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+    // Tabela revoked_token compartilhada entre instâncias
+    private final List<RevokedToken> revokedTable = new ArrayList<>();
+
+    private AccessTokenServices service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(revokedTokenRepository.save(any())).thenAnswer(call -> {
+            revokedTable.add(call.getArgument(0));
+            return call.getArgument(0);
+        });
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenAnswer(call -> List.copyOf(revokedTable));
+        service = instance();
+    }
+
+    @Test
+    void issuedTokenVerifies() {
+        AccessToken token = service.issue(7L);
+
+        assertThat(service.verify(service.encode(token))).contains(token);
+    }
+
+    @Test
+    void tamperedOrMalformedTokenIsRejected() {
+        String encoded = service.encode(service.issue(7L));
+        String otherPatient = service.encode(service.issue(8L));
+        // Payload de um paciente com a assinatura de outro
+        String swapped = otherPatient.substring(0, otherPatient.indexOf('.')) + encoded.substring(encoded.indexOf('.'));
+
+        assertThat(service.verify(swapped)).isEmpty();
+        assertThat(service.verify(encoded + "x")).isEmpty();
+        assertThat(service.verify("sem-ponto")).isEmpty();
+        assertThat(service.verify(".assinatura")).isEmpty();
+        assertThat(service.verify("@@@.@@@")).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        long past = Instant.now().getEpochSecond() - 10;
+        AccessToken expired = new AccessToken(7L, "abc", past - 3600, past);
+
+        assertThat(service.verify(service.encode(expired))).isEmpty();
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() throws Exception {
+        ReflectionTestUtils.setField(service, "secret", "outro-segredo-tambem-com-mais-de-32-bytes");
+        service.start();
+        String foreign = service.encode(service.issue(7L));
+
+        assertThat(instance().verify(foreign)).isEmpty();
+    }
+
+    @Test
+    void revokeAffectsOnlyThatToken() {
+        AccessToken first = service.issue(7L);
+        AccessToken second = service.issue(7L);
+
+        service.revoke(first);
+
+        assertThat(service.verify(service.encode(first))).isEmpty();
+        assertThat(service.verify(service.encode(second))).isPresent();
+    }
+
+    @Test
+    void revokePatientCoversTokensIssuedUntilThen() {
+        AccessToken old = service.issue(7L);
+        AccessToken otherPatient = service.issue(8L);
+
+        service.revokePatient(7L);
+
+        assertThat(service.verify(service.encode(old))).isEmpty();
+        assertThat(service.verify(service.encode(otherPatient))).isPresent();
+        // Login depois da revogação (ex.: paciente restaurado) volta a valer
+        long later = Instant.now().getEpochSecond() + 1;
+        AccessToken fresh = new AccessToken(7L, "novo", later, later + 3600);
+        assertThat(service.verify(service.encode(fresh))).isPresent();
+    }
+
+    // Outra instância só enxerga a revogação depois de reler a tabela
+    @Test
+    void revocationReachesOtherInstancesOnRefresh() throws Exception {
+        AccessTokenServices other = instance();
+        AccessToken token = service.issue(7L);
+        String encoded = service.encode(token);
+
+        service.revoke(token);
+        assertThat(other.verify(encoded)).isPresent();
+
+        other.refreshRevocations();
+        assertThat(other.verify(encoded)).isEmpty();
+    }
+
+    @Test
+    void localRevocationSurvivesARefresh() {
+        AccessToken token = service.issue(7L);
+        service.revoke(token);
+        revokedTable.clear();
+
+        service.refreshRevocations();
+
+        assertThat(service.verify(service.encode(token))).isEmpty();
+    }
+
+    private AccessTokenServices instance() throws Exception {
+        AccessTokenServices instance = new AccessTokenServices();
+        ReflectionTestUtils.setField(instance, "revokedTokenRepository", revokedTokenRepository);
+        ReflectionTestUtils.setField(instance, "secret", SECRET);
+        ReflectionTestUtils.setField(instance, "ttlMinutes", 60L);
+        instance.start();
+        return instance;
+    }
+}
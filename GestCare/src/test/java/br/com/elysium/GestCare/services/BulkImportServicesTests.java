@@ -0,0 +1,202 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.dto.ImportReport;
+import br.com.elysium.GestCare.dto.ImportRowError;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class BulkImportServicesTests {
+
+    private static final String HEADER = "name,lastName,cpf,birthDate,gender,password\n";
+    private static final String HASH = new BCryptPasswordEncoder(4).encode("senha-original");
+    private static final String DUPLICATE_CPF = "99999999999";
+
+    private final BulkImportServices service = new BulkImportServices();
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final PasswordHashingServices passwordHashingServices = new PasswordHashingServices();
+    // cpf -> senha gravada
+    private final Map<String, String> stored = new ConcurrentHashMap<>();
+    // cpf -> paciente gravado
+    private final Map<String, Patient> imported = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(passwordHashingServices, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(passwordHashingServices, "strength", 4);
+        ReflectionTestUtils.setField(passwordHashingServices, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingServices, "queueCapacity", 10);
+        ReflectionTestUtils.setField(passwordHashingServices, "timeoutMs", 2000L);
+        passwordHashingServices.start();
+
+        doAnswer(call -> {
+            List<Patient> patients = call.getArgument(0);
+            // CPF já cadastrado: o banco recusa o lote inteiro
+            if (patients.stream().anyMatch(patient -> DUPLICATE_CPF.equals(patient.getCpf()))) {
+                throw new DataIntegrityViolationException("Duplicate entry '" + DUPLICATE_CPF + "' for key 'cpf'");
+            }
+            patients.forEach(patient -> {
+                stored.put(patient.getCpf(), patient.getPassword());
+                imported.put(patient.getCpf(), patient);
+            });
+            return null;
+        }).when(patientRepository).insertAll(anyList());
+
+        ReflectionTestUtils.setField(service, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(service, "patientSearchServices", mock(PatientSearchServices.class));
+        ReflectionTestUtils.setField(service, "passwordHashingServices", passwordHashingServices);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "objectMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(service, "workerThreads", new WorkerThreads());
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "writers", 1);
+        ReflectionTestUtils.setField(service, "maxReportedErrors", 100);
+        ReflectionTestUtils.setField(service, "plaintextPasswords", "hash");
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        passwordHashingServices.stop();
+    }
+
+    // Hash pronto não passa pelo BCrypt de novo: o login continua com a senha original
+    @Test
+    void bcryptHashIsStoredAsIs() throws Exception {
+        ImportReport report = importCsv("Ana,Souza,11111111111,1990-01-01,2," + HASH + "\n");
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(stored.get("11111111111")).isEqualTo(HASH);
+        assertThat(passwordHashingServices.matches("senha-original", stored.get("11111111111"))).isTrue();
+    }
+
+    @Test
+    void plaintextIsHashedByDefault() throws Exception {
+        ImportReport report = importCsv("Ana,Souza,11111111111,1990-01-01,2,segredo123\n");
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(passwordHashingServices.isBcryptHash(stored.get("11111111111"))).isTrue();
+        assertThat(passwordHashingServices.matches("segredo123", stored.get("11111111111"))).isTrue();
+    }
+
+    @Test
+    void plaintextIsRejectedWhenConfigured() throws Exception {
+        ReflectionTestUtils.setField(service, "plaintextPasswords", "reject");
+
+        ImportReport report = importCsv(
+                "Ana,Souza,11111111111,1990-01-01,2,segredo123\n"
+                        + "Bia,Lima,22222222222,1991-01-01,2," + HASH + "\n");
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.errors()).singleElement()
+                .satisfies(error -> assertThat(error.toString()).contains("texto puro"));
+        assertThat(stored).containsOnlyKeys("22222222222");
+    }
+
+    // Um "$2a$" truncado trancaria o paciente para fora: a linha é recusada
+    @Test
+    void malformedHashIsRejected() throws Exception {
+        ImportReport report = importCsv("Ana,Souza,11111111111,1990-01-01,2,$2a$10$curto\n");
+
+        assertThat(report.inserted()).isZero();
+        assertThat(report.failed()).isEqualTo(1);
+    }
+
+    // Campo entre aspas pode ter o separador, aspas dobradas e quebra de linha
+    @Test
+    void quotedCsvFieldsAreKeptWhole() throws Exception {
+        ImportReport report = importCsv(
+                "\"Ana, Maria\",\"D'Ávila \"\"Filha\"\"\",11111111111,1990-01-01,2," + HASH + "\n"
+                        + "\"Bia\nClara\",Lima,22222222222,1991-01-01,2," + HASH + "\n");
+
+        assertThat(report.inserted()).isEqualTo(2);
+        assertThat(imported.get("11111111111").getName()).isEqualTo("Ana, Maria");
+        assertThat(imported.get("11111111111").getLastName()).isEqualTo("D'Ávila \"Filha\"");
+        assertThat(imported.get("22222222222").getName()).isEqualTo("Bia\nClara");
+    }
+
+    // Planilha em português: ";" como separador, BOM no início e colunas em outra ordem
+    @Test
+    void semicolonHeaderWithBomIsDetected() throws Exception {
+        String csv = "\uFEFFcpf;name;lastName;birthDate;gender;password\n"
+                + "11111111111;Ana;Souza, Lima;1990-01-01;2;" + HASH + "\n";
+
+        ImportReport report = service.importPatients(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(imported.get("11111111111").getName()).isEqualTo("Ana");
+        assertThat(imported.get("11111111111").getLastName()).isEqualTo("Souza, Lima");
+    }
+
+    // O banco recusou o lote: ele é regravado linha a linha e só a linha com problema é apontada
+    @Test
+    void rowRejectedByTheDatabaseIsReportedAlone() throws Exception {
+        ImportReport report = importCsv(
+                "Ana,Souza,11111111111,1990-01-01,2," + HASH + "\n"
+                        + "Bia,Lima," + DUPLICATE_CPF + ",1991-01-01,2," + HASH + "\n"
+                        + "Caio,Reis,33333333333,1992-01-01,1," + HASH + "\n");
+
+        assertThat(report.rows()).isEqualTo(3);
+        assertThat(report.inserted()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.errors()).singleElement().satisfies(error -> {
+            assertThat(error.row()).isEqualTo(2);
+            assertThat(error.message()).startsWith("Rejeitada pelo banco").contains(DUPLICATE_CPF);
+        });
+        assertThat(stored).containsOnlyKeys("11111111111", "33333333333");
+    }
+
+    // Linhas em branco e malformadas contam: o erro aponta a linha do arquivo
+    @Test
+    void ndjsonErrorsPointAtTheSourceLine() throws Exception {
+        String ndjson = "{\"name\":\"Ana\",\"lastName\":\"Souza\",\"cpf\":\"11111111111\",\"birthDate\":\"1990-01-01\",\"gender\":2,\"password\":\"" + HASH + "\"}\n"
+                + "\n"
+                + "{\"name\":\n"
+                + "\n"
+                + "{\"name\":\"Bia\",\"lastName\":\"Lima\",\"cpf\":\"22222222222\",\"birthDate\":\"1991-01-01\",\"gender\":9,\"password\":\"" + HASH + "\"}\n";
+
+        ImportReport report = service.importPatients(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), true);
+
+        assertThat(report.rows()).isEqualTo(3);
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.errors()).extracting(ImportRowError::row).containsExactly(3L, 5L);
+    }
+
+    @Test
+    void csvErrorsCountBlankRecords() throws Exception {
+        ImportReport report = importCsv(
+                "Ana,Souza,11111111111,1990-01-01,2," + HASH + "\n"
+                        + "\n"
+                        + "Bia,Lima,22222222222,1991-01-01,9," + HASH + "\n");
+
+        assertThat(report.rows()).isEqualTo(2);
+        assertThat(report.errors()).extracting(ImportRowError::row).containsExactly(3L);
+    }
+
+    private ImportReport importCsv(String rows) throws Exception {
+        return service.importPatients(new ByteArrayInputStream((HEADER + rows).getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
@@ -0,0 +1,213 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.UploadSession;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ChunkedUploadServicesTests {
+
+    private static final Long PATIENT = 7L;
+
+    @TempDir
+    Path sessionDir;
+
+    private final ChunkedUploadServices service = new ChunkedUploadServices();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "sessionDir", sessionDir);
+        ReflectionTestUtils.setField(service, "sessionTtlHours", 24L);
+        ReflectionTestUtils.setField(service, "fileServices", mock(FileServices.class));
+    }
+
+    @Test
+    void appendsResumeFromTheConfirmedOffset() {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+
+        service.append(session.uploadId(), 0, bytes("abc"), PATIENT);
+        UploadSession resumed = service.append(session.uploadId(), 3, bytes("def"), PATIENT);
+
+        assertThat(resumed.offset()).isEqualTo(6);
+        assertThat(service.status(session.uploadId(), PATIENT).offset()).isEqualTo(6);
+    }
+
+    @Test
+    void wrongOffsetIsAConflict() {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+        service.append(session.uploadId(), 0, bytes("abc"), PATIENT);
+
+        assertConflict(() -> service.append(session.uploadId(), 0, bytes("abc"), PATIENT));
+    }
+
+    // Na mesma JVM o FileLock lançaria OverlappingFileLockException (500); o lock em memória responde 409
+    @Test
+    void concurrentAppendToTheSameSessionIsAConflict() throws Exception {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slowBody = new InputStream() {
+            private boolean sent;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (sent) {
+                    return -1;
+                }
+                reading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                buffer[offset] = 'a';
+                sent = true;
+                return 1;
+            }
+        };
+
+        CompletableFuture<UploadSession> first =
+                CompletableFuture.supplyAsync(() -> service.append(session.uploadId(), 0, slowBody, PATIENT));
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertConflict(() -> service.append(session.uploadId(), 0, bytes("abc"), PATIENT));
+        assertConflict(() -> service.abort(session.uploadId(), PATIENT));
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS).offset()).isEqualTo(1);
+    }
+
+    @Test
+    void abortRemovesTheSession() {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+
+        service.abort(session.uploadId(), PATIENT);
+
+        assertThatThrownBy(() -> service.status(session.uploadId(), PATIENT)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(sessionDir).isEmptyDirectory();
+    }
+
+    // Sessão de outro paciente responde como inexistente em todos os endpoints
+    @Test
+    void sessionsBelongToThePatientWhoCreatedThem() {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+        String uploadId = session.uploadId();
+        Long other = 8L;
+
+        assertNotFound(() -> service.status(uploadId, other));
+        assertNotFound(() -> service.append(uploadId, 0, bytes("abc"), other));
+        assertNotFound(() -> service.complete(uploadId, 1L, 1L, "2024-01-01", "Laudo", other));
+        assertNotFound(() -> service.abort(uploadId, other));
+
+        assertThat(service.status(uploadId, PATIENT).offset()).isZero();
+        // Chave de administração (sem paciente) enxerga a sessão
+        assertThat(service.status(uploadId, null).fileName()).isEqualTo("exame.pdf");
+    }
+
+    @Test
+    void patientCannotUseAnAdminSession() {
+        UploadSession session = service.init("exame.pdf", 6, null);
+
+        assertNotFound(() -> service.status(session.uploadId(), PATIENT));
+    }
+
+    @Test
+    void abandonedSessionsExpire() throws Exception {
+        UploadSession abandoned = service.init("antigo.pdf", 6, PATIENT);
+        UploadSession active = service.init("novo.pdf", 6, PATIENT);
+        age(abandoned.uploadId(), Duration.ofHours(25));
+        // ".part" que sobrou sem metadados (ex.: complete que falhou depois de apagar os metadados)
+        Path orphan = sessionDir.resolve("0b7f4d8e-0000-4000-8000-000000000000.part");
+        Files.writeString(orphan, "abc");
+        Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+
+        service.expireSessions();
+
+        assertThatThrownBy(() -> service.status(abandoned.uploadId(), PATIENT)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Files.exists(sessionDir.resolve(abandoned.uploadId() + ".part"))).isFalse();
+        assertThat(Files.exists(orphan)).isFalse();
+        assertThat(service.status(active.uploadId(), PATIENT).fileName()).isEqualTo("novo.pdf");
+    }
+
+    @Test
+    void recentChunksKeepASessionAlive() throws Exception {
+        UploadSession session = service.init("exame.pdf", 6, PATIENT);
+        age(session.uploadId(), Duration.ofHours(25));
+        Files.setLastModifiedTime(sessionDir.resolve(session.uploadId() + ".part"), FileTime.from(Instant.now()));
+
+        service.expireSessions();
+
+        assertThat(service.status(session.uploadId(), PATIENT).offset()).isZero();
+    }
+
+    // Os locks em memória saem junto com a sessão (cancelada, expirada ou já inexistente)
+    @Test
+    void sessionLocksDoNotOutliveTheSessions() throws Exception {
+        UploadSession aborted = service.init("cancelado.pdf", 6, PATIENT);
+        UploadSession abandoned = service.init("antigo.pdf", 6, PATIENT);
+        UploadSession active = service.init("novo.pdf", 6, PATIENT);
+        service.append(aborted.uploadId(), 0, bytes("abc"), PATIENT);
+        service.append(abandoned.uploadId(), 0, bytes("abc"), PATIENT);
+        service.append(active.uploadId(), 0, bytes("abc"), PATIENT);
+
+        service.abort(aborted.uploadId(), PATIENT);
+        assertNotFound(() -> service.append(aborted.uploadId(), 3, bytes("def"), PATIENT));
+        assertNotFound(() -> service.abort(aborted.uploadId(), PATIENT));
+        age(abandoned.uploadId(), Duration.ofHours(25));
+        service.expireSessions();
+
+        assertThat(sessionLocks()).containsOnlyKeys(active.uploadId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ReentrantLock> sessionLocks() {
+        return (Map<String, ReentrantLock>) ReflectionTestUtils.getField(service, "sessionLocks");
+    }
+
+    private void age(String uploadId, Duration age) throws Exception {
+        FileTime old = FileTime.from(Instant.now().minus(age));
+        Files.setLastModifiedTime(sessionDir.resolve(uploadId + ".part"), old);
+        Files.setLastModifiedTime(sessionDir.resolve(uploadId + ".properties"), old);
+    }
+
+    private static InputStream bytes(String text) {
+        return new ByteArrayInputStream(text.getBytes());
+    }
+
+    private static void assertNotFound(Runnable call) {
+        assertThatThrownBy(call::run).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static void assertConflict(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,218 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.DocumentSearchHit;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.FileType;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.model.SearchIndexJob;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.SearchIndexJobRepository;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentSearchServicesTests {
+
+    @TempDir
+    Path indexDir;
+
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final SearchIndexJobRepository jobRepository = mock(SearchIndexJobRepository.class);
+    private DocumentSearchServices service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.stop();
+    }
+
+    // Os acentos saem antes do stemming: com ou sem acento, a consulta cai no mesmo termo
+    @Test
+    void unaccentedQueryFindsAccentedDocument() throws Exception {
+        indexable(file(1L, "Relatório de internações", "Avaliação dos médicos plantonistas"),
+                file(2L, "Exame do coracao", "ecocardiograma"));
+
+        service.reconcile();
+        service.refresh();
+
+        assertThat(ids("internacoes")).containsExactly(1L);
+        assertThat(ids("INTERNAÇÕES")).containsExactly(1L);
+        assertThat(ids("medico")).containsExactly(1L);
+        assertThat(ids("relatorios")).containsExactly(1L);
+        assertThat(ids("coração")).containsExactly(2L);
+    }
+
+    // O job só sai da tabela depois do commit do índice que o contém
+    @Test
+    void appliedJobIsRemovedOnlyAfterTheCommit() throws Exception {
+        indexable(file(1L, "Laudo de ressonância", null));
+        when(jobRepository.save(any(SearchIndexJob.class))).thenAnswer(call -> withId(call.getArgument(0), 7L));
+
+        service.onFileStored(new FileStoredEvent(1L, null, "laudo.pdf"));
+        drain();
+
+        verify(jobRepository, never()).deleteAllByIdInBatch(any());
+        service.commit();
+        verify(jobRepository).deleteAllByIdInBatch(List.of(7L));
+
+        // Gravado em disco: outra instância (depois de uma queda) já enxerga o documento
+        service.stop();
+        service = open();
+        assertThat(ids("ressonancia")).containsExactly(1L);
+    }
+
+    // Job pendente (fila cheia ou queda antes do commit) é reaplicado na subida
+    @Test
+    void pendingJobIsReplayedOnStartup() throws Exception {
+        indexable(file(1L, "Laudo de ressonância", null));
+        service.reconcile();
+        service.refresh();
+
+        when(fileRepository.findIndexableById(1L)).thenReturn(Optional.empty());
+        when(jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(withId(new SearchIndexJob(SearchIndexJob.Target.FILE, 1L), 8L)));
+        // O banco já não tem o documento, mas a contagem ainda não foi conferida
+        when(fileRepository.countIndexable()).thenReturn(0L);
+
+        service.reconcile();
+        service.refresh();
+
+        assertThat(ids("ressonancia")).isEmpty();
+        verify(jobRepository).deleteAllByIdInBatch(List.of(8L));
+    }
+
+    // Job que falhou continua na tabela e é tentado de novo
+    @Test
+    void failedJobStaysInTheTable() throws Exception {
+        when(fileRepository.findIndexableById(1L)).thenThrow(new IllegalStateException("database down"));
+        when(jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(withId(new SearchIndexJob(SearchIndexJob.Target.FILE, 1L), 9L)));
+
+        service.reconcile();
+        service.reconcile();
+
+        verify(jobRepository, never()).deleteAllByIdInBatch(any());
+        verify(fileRepository, times(2)).findIndexableById(1L);
+    }
+
+    // Índice com documentos a mais (deleção perdida) é reconstruído, e os que sobraram saem
+    @Test
+    void countMismatchRebuildsAndSweepsStaleDocuments() throws Exception {
+        indexable(file(1L, "Hemograma completo", null), file(2L, "Hemograma de controle", null));
+        service.reconcile();
+        service.stop();
+
+        indexable(file(1L, "Hemograma completo", null));
+        service = open();
+        service.reconcile();
+        service.refresh();
+
+        assertThat(ids("hemograma")).containsExactly(1L);
+    }
+
+    // Índice em dia com o banco não é reconstruído na subida
+    @Test
+    void matchingIndexIsNotRebuilt() throws Exception {
+        indexable(file(1L, "Hemograma completo", null));
+        service.reconcile();
+        service.stop();
+
+        service = open();
+        service.reconcile();
+
+        verify(fileRepository, times(1)).findIndexablePage(eq(0L), any(Limit.class));
+    }
+
+    private DocumentSearchServices open() throws Exception {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        DocumentSearchServices opened = new DocumentSearchServices();
+        ReflectionTestUtils.setField(opened, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(opened, "storage", mock(StorageBackend.class));
+        ReflectionTestUtils.setField(opened, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(opened, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(opened, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(opened, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(opened, "workers", 1);
+        ReflectionTestUtils.setField(opened, "queueCapacity", 10);
+        ReflectionTestUtils.setField(opened, "maxExtractedChars", 1000);
+        opened.start();
+        return opened;
+    }
+
+    // O que o banco tem: página da reconstrução, leitura por id e a contagem
+    private void indexable(File... files) {
+        when(fileRepository.findIndexablePage(eq(0L), any(Limit.class))).thenReturn(List.of(files));
+        when(fileRepository.findIndexablePage(eq(files[files.length - 1].getId()), any(Limit.class))).thenReturn(List.of());
+        when(fileRepository.findIndexableById(anyLong())).thenReturn(Optional.empty());
+        for (File file : files) {
+            when(fileRepository.findIndexableById(file.getId())).thenReturn(Optional.of(file));
+        }
+        when(fileRepository.countIndexable()).thenReturn((long) files.length);
+    }
+
+    private void drain() throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private List<Long> ids(String text) throws Exception {
+        service.refresh();
+        return service.search(1L, text, 10).stream().map(DocumentSearchHit::fileId).toList();
+    }
+
+    private SearchIndexJob withId(SearchIndexJob job, long id) {
+        job.setId(id);
+        return job;
+    }
+
+    private File file(Long id, String title, String description) {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        Hospital hospital = new Hospital();
+        hospital.setId(10L);
+        hospital.setPatient(patient);
+        FileType fileType = new FileType();
+        fileType.setName("Laudo");
+
+        File file = new File();
+        file.setId(id);
+        file.setTitle(title);
+        file.setDescription(description);
+        file.setFileName("documento-" + id + ".pdf");
+        file.setHospital(hospital);
+        file.setFileType(fileType);
+        return file;
+    }
+}
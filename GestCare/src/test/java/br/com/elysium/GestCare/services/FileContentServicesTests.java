@@ -0,0 +1,181 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileContentServicesTests {
+
+    private static final String HASH = "3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b";
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path root;
+
+    private final FileContentServices service = new FileContentServices();
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final File file = new File();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalStorageBackend storage = new LocalStorageBackend(root);
+        storage.store(HASH, Files.writeString(root.resolve("upload.tmp"), CONTENT));
+
+        file.setId(1L);
+        file.setFileName("laudo.txt");
+        file.setContentHash(HASH);
+        file.setFileSize((long) CONTENT.length());
+        when(fileRepository.findByIdAndPatientId(1L, 7L)).thenReturn(Optional.of(file));
+
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "storage", storage);
+    }
+
+    @Test
+    void withoutRangeTheWholeContentIsSent() throws Exception {
+        MockHttpServletResponse response = serve(request(null));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        MockHttpServletResponse response = serve("bytes=2-5");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+    }
+
+    // Intervalo aberto e sufixo ("os últimos n bytes"); fim além do tamanho é limitado ao último byte
+    @Test
+    void openAndSuffixRangesAreResolvedAgainstTheLength() throws Exception {
+        assertThat(serve("bytes=7-").getContentAsString()).isEqualTo("789");
+        assertThat(serve("bytes=-3").getContentAsString()).isEqualTo("789");
+
+        MockHttpServletResponse response = serve("bytes=8-100");
+        assertThat(response.getContentAsString()).isEqualTo("89");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 8-9/10");
+    }
+
+    @Test
+    void multipleRangesAreMultipart() throws Exception {
+        MockHttpServletResponse response = serve("bytes=0-1,8-9");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        assertThat(response.getContentAsString())
+                .contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n--" + boundary)
+                .contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    void unsatisfiableOrMalformedRangeIs416() throws Exception {
+        for (String range : new String[] {"bytes=10-20", "bytes=-0", "bytes=abc", "items=0-1"}) {
+            MockHttpServletResponse response = serve(range);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isEqualTo("bytes */10");
+            assertThat(response.getContentAsString()).as(range).isEmpty();
+        }
+    }
+
+    // Só os intervalos fora do conteúdo são descartados; os demais ainda são atendidos
+    @Test
+    void unsatisfiableRangesAmongValidOnesAreDropped() throws Exception {
+        MockHttpServletResponse response = serve("bytes=20-30,2-5");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    // If-Range com ETag antiga: o cliente recebe a versão inteira, não um pedaço de outra versão
+    @Test
+    void staleIfRangeSendsTheWholeContent() throws Exception {
+        MockHttpServletRequest request = request("bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"outra-versao\"");
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+
+        request = request("bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"" + HASH + "\"");
+        assertThat(serve(request).getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        MockHttpServletRequest request = request("bytes=2-5");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"" + HASH + "\"");
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsString()).isEmpty();
+    }
+
+    // Conteúdo gravado em gzip: o intervalo se refere aos bytes originais, não aos comprimidos
+    @Test
+    void rangeOverCompressedContentUsesTheOriginalOffsets() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+        Path source = Files.write(root.resolve("upload.gz.tmp"), compressed.toByteArray());
+        new LocalStorageBackend(root).store(ContentCodec.key(HASH, ContentCodec.GZIP), source);
+        file.setContentEncoding(ContentCodec.GZIP);
+        file.setStoredSize((long) compressed.size());
+
+        MockHttpServletRequest request = request("bytes=3-6");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 3-6/10");
+        assertThat(response.getContentAsString()).isEqualTo("3456");
+    }
+
+    private MockHttpServletResponse serve(String range) throws Exception {
+        return serve(request(range));
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(1L, 7L, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/1/content");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+}
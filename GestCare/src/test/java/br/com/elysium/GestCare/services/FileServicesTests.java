@@ -0,0 +1,150 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.StoredFileRow;
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.FileType;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.PreviewJobRepository;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileServicesTests {
+
+    // SHA-256 de "abc"
+    private static final String HASH = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private final FileServices service = new FileServices();
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final StorageBackend storage = mock(StorageBackend.class);
+    private final PreviewJobRepository previewJobRepository = mock(PreviewJobRepository.class);
+    private final ReferenceDataServices referenceDataServices = mock(ReferenceDataServices.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "storage", storage);
+        ReflectionTestUtils.setField(service, "previewJobRepository", previewJobRepository);
+        ReflectionTestUtils.setField(service, "referenceDataServices", referenceDataServices);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+
+        Patient patient = new Patient();
+        patient.setId(1L);
+        Hospital hospital = new Hospital();
+        hospital.setId(10L);
+        hospital.setPatient(patient);
+        when(referenceDataServices.findHospital(10L)).thenReturn(Optional.of(hospital));
+        when(referenceDataServices.findFileType(5L)).thenReturn(Optional.of(new FileType()));
+        when(fileRepository.save(any(File.class))).thenAnswer(call -> call.getArgument(0));
+        when(storage.location(anyString())).thenAnswer(call -> "store/" + call.getArgument(0));
+    }
+
+    // Conhecer o hash de um documento de outro paciente não basta para anexá-lo
+    @Test
+    void knownHashMustBelongToTheCaller() {
+        when(fileRepository.findStoredByContentHashAndPatientId(HASH, 1L, Limit.of(1))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service.saveKnownFile(HASH, "exame.pdf", 10L, 5L, "2026-01-10", "", 1L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(fileRepository, never()).save(any());
+    }
+
+    @Test
+    void knownHashOfTheCallerReusesTheStoredBytes() {
+        when(fileRepository.findStoredByContentHashAndPatientId(HASH, 1L, Limit.of(1))).thenReturn(List.of(storedRow()));
+
+        File file = service.saveKnownFile(HASH, "exame copia.pdf", 10L, 5L, "2026-01-10", "", 1L);
+
+        assertThat(file.getContentHash()).isEqualTo(HASH);
+        assertThat(file.getFilePath()).isEqualTo("store/" + HASH);
+        assertThat(file.getFileName()).isEqualTo("exame_copia.pdf");
+    }
+
+    @Test
+    void contentCheckIsScopedToTheCaller() {
+        when(fileRepository.existsByContentHashAndPatientId(HASH, 1L)).thenReturn(false);
+        when(fileRepository.existsByContentHash(HASH)).thenReturn(true);
+
+        assertThat(service.contentExists(HASH, 1L)).isFalse();
+        // Chave de administração (sem paciente): todo o armazenamento
+        assertThat(service.contentExists(HASH, null)).isTrue();
+    }
+
+    @Test
+    void identicalUploadIsStoredOnce() throws Exception {
+        when(fileRepository.findStoredByContentHash(HASH, Limit.of(1))).thenReturn(List.of(storedRow()));
+
+        File file = service.saveFile(new MockMultipartFile("file", "exame.txt", "text/plain", "abc".getBytes()),
+                10L, 5L, "2026-01-10", "");
+
+        assertThat(file.getContentHash()).isEqualTo(HASH);
+        assertThat(file.getFilePath()).isEqualTo("store/" + HASH);
+        verify(storage, never()).store(anyString(), any(Path.class));
+    }
+
+    @Test
+    void newContentIsStoredUnderItsHash() throws Exception {
+        when(fileRepository.findStoredByContentHash(HASH, Limit.of(1))).thenReturn(List.of());
+
+        File file = service.saveFile(new MockMultipartFile("file", "exame.txt", "text/plain", "abc".getBytes()),
+                10L, 5L, "2026-01-10", "");
+
+        verify(storage).store(anyString(), any(Path.class));
+        assertThat(file.getContentHash()).isEqualTo(HASH);
+        assertThat(file.getFileSize()).isEqualTo(3);
+    }
+
+    @Test
+    void bytesStayWhileAnotherRecordReferencesThem() throws Exception {
+        when(fileRepository.countByContentHash(HASH)).thenReturn(1L);
+
+        service.releaseContent(stored());
+
+        verify(storage, never()).delete(anyString());
+        verify(previewJobRepository, never()).deleteByContentHash(anyString());
+    }
+
+    @Test
+    void lastReferenceDeletesTheBytesAndThePreview() throws Exception {
+        when(fileRepository.countByContentHash(HASH)).thenReturn(0L);
+
+        service.releaseContent(stored());
+
+        verify(storage).delete(HASH);
+        verify(storage).delete(PreviewServices.previewKey(HASH));
+        verify(previewJobRepository).deleteByContentHash(HASH);
+    }
+
+    private File stored() {
+        File file = new File();
+        file.setId(99L);
+        file.setContentHash(HASH);
+        file.setFilePath("store/" + HASH);
+        file.setFileSize(3L);
+        return file;
+    }
+
+    private StoredFileRow storedRow() {
+        return new StoredFileRow(99L, "store/" + HASH, HASH, null, 3L, null);
+    }
+}
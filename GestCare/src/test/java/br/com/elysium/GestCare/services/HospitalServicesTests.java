@@ -0,0 +1,16 @@
+package br.com.elysium.GestCare.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HospitalServicesTests {
+
+    @Test
+    void likeWildcardsTypedByTheUserAreLiteral() {
+        assertThat(HospitalServices.escapeLike("100%")).isEqualTo("100!%");
+        assertThat(HospitalServices.escapeLike("sao_paulo")).isEqualTo("sao!_paulo");
+        assertThat(HospitalServices.escapeLike("Hospital!")).isEqualTo("Hospital!!");
+        assertThat(HospitalServices.escapeLike("Santa Casa")).isEqualTo("Santa Casa");
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MergePatchServicesTests {
+
+    private static final Map<String, Class<?>> PATCHABLE = Map.of(
+            "name", String.class,
+            "lastName", String.class,
+            "email", String.class,
+            "gender", Integer.class);
+
+    private final MergePatchServices service = new MergePatchServices();
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Query update = mock(Query.class, RETURNS_SELF);
+    private final Query versionLookup = mock(Query.class, RETURNS_SELF);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "objectMapper", JsonMapper.builder().build());
+        when(entityManager.createQuery(startsWith("UPDATE"))).thenReturn(update);
+        when(entityManager.createQuery(startsWith("SELECT"))).thenReturn(versionLookup);
+    }
+
+    @Test
+    void requiresAVersion() {
+        assertThatThrownBy(() -> service.apply(Patient.class, 1L, Map.of("name", "Ana"), null, PATCHABLE))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.PRECONDITION_REQUIRED);
+    }
+
+    @Test
+    void takesTheVersionFromTheBodyWhenThereIsNoIfMatch() {
+        when(update.executeUpdate()).thenReturn(1);
+
+        long version = service.apply(Patient.class, 1L, Map.of("name", "Ana", "version", 3), null, PATCHABLE);
+
+        assertThat(version).isEqualTo(4);
+        verify(update).setParameter("version", 3L);
+    }
+
+    @Test
+    void updatesOnlyThePatchedFieldsAndBumpsTheVersion() {
+        when(update.executeUpdate()).thenReturn(1);
+
+        long version = service.apply(Patient.class, 7L, Map.of("email", "ana@exemplo.com"), 2L, PATCHABLE);
+
+        assertThat(version).isEqualTo(3);
+        verify(entityManager).createQuery(
+                "UPDATE Patient e SET e.email = :email, e.version = e.version + 1 WHERE e.id = :id AND e.version = :version");
+        verify(update).setParameter("email", "ana@exemplo.com");
+        verify(update).setParameter("id", 7L);
+        verify(update).setParameter("version", 2L);
+    }
+
+    @Test
+    void emptyPatchDoesNotTouchTheDatabase() {
+        long version = service.apply(Patient.class, 1L, Map.of("version", 5), null, PATCHABLE);
+
+        assertThat(version).isEqualTo(5);
+        verify(entityManager, never()).createQuery(anyString());
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        when(update.executeUpdate()).thenReturn(0);
+        when(versionLookup.getResultList()).thenReturn(List.of(4L));
+
+        assertThatThrownBy(() -> service.apply(Patient.class, 1L, Map.of("name", "Ana"), 3L, PATCHABLE))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void missingRecordIsNotFound() {
+        when(update.executeUpdate()).thenReturn(0);
+        when(versionLookup.getResultList()).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service.apply(Patient.class, 1L, Map.of("name", "Ana"), 3L, PATCHABLE))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    // Com dono, o UPDATE e a consulta da falha ficam restritos a ele: registro de outro paciente é 404
+    @Test
+    void ownerIsPartOfTheUpdate() {
+        when(update.executeUpdate()).thenReturn(0);
+        when(versionLookup.getResultList()).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service.apply(Hospital.class, 5L, "patient.id", 9L,
+                Map.of("name", "Hospital Central"), 1L, Map.of("name", String.class)))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verify(entityManager).createQuery("UPDATE Hospital e SET e.name = :name, e.version = e.version + 1 "
+                + "WHERE e.id = :id AND e.version = :version AND e.patient.id = :owner");
+        verify(update).setParameter("owner", 9L);
+        verify(entityManager).createQuery("SELECT e.version FROM Hospital e WHERE e.id = :id AND e.patient.id = :owner");
+        verify(versionLookup).setParameter("owner", 9L);
+    }
+
+    @Test
+    void fieldsOutsideThePatchableSetAreRejected() {
+        assertThatBadRequest(Map.of("cpf", "12345678900"));
+    }
+
+    @Test
+    void valuesAreValidatedWithTheEntityConstraints() {
+        assertThatBadRequest(Map.of("name", " "));
+        assertThatBadRequest(Map.of("gender", 9));
+        assertThatBadRequest(Map.of("gender", "não é número"));
+    }
+
+    @Test
+    void nullOnANotNullColumnIsABadRequest() {
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("lastName", null);
+
+        assertThatBadRequest(patch);
+        verify(entityManager, never()).createQuery(anyString());
+    }
+
+    @Test
+    void nullClearsANullableColumn() {
+        when(update.executeUpdate()).thenReturn(1);
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("email", null);
+
+        service.apply(Patient.class, 1L, patch, 1L, PATCHABLE);
+
+        verify(update).setParameter(eq("email"), (Object) eq(null));
+    }
+
+    private void assertThatBadRequest(Map<String, Object> patch) {
+        assertThatThrownBy(() -> service.apply(Patient.class, 1L, patch, 1L, PATCHABLE))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
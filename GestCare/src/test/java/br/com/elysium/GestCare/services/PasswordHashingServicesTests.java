@@ -0,0 +1,51 @@
+package br.com.elysium.GestCare.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashingServicesTests {
+
+    private final PasswordHashingServices service = new PasswordHashingServices();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "strength", 4);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 2);
+        ReflectionTestUtils.setField(service, "timeoutMs", 2000L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    // Importação em lote (threads virtuais) com a fila pequena: todos esperam a vez, nenhum 503
+    @Test
+    void backgroundHashingWaitsInsteadOfRejecting() throws Exception {
+        List<Future<String>> hashes = new ArrayList<>();
+        try (ExecutorService importers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                String password = "senha-" + i;
+                hashes.add(importers.submit(() -> service.hashWaiting(password)));
+            }
+        }
+
+        for (int i = 0; i < hashes.size(); i++) {
+            assertThat(service.matches("senha-" + i, hashes.get(i).get())).isTrue();
+        }
+    }
+}
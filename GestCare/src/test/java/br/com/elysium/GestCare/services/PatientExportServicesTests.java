@@ -0,0 +1,117 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientExportServicesTests {
+
+    private final PatientExportServices service = new PatientExportServices();
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final StorageBackend storage = mock(StorageBackend.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(service, "storage", storage);
+        when(storage.exists(anyString())).thenReturn(true);
+        when(storage.open(anyString())).thenAnswer(call -> new ByteArrayInputStream("conteudo".getBytes()));
+    }
+
+    // Filtros vão para a consulta; nada é filtrado em memória
+    @Test
+    void filtersArePassedToTheQuery() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 6, 30);
+        List<File> files = List.of(file(1L, "Laudo", "Exame de rotina"));
+        when(patientRepository.existsById(7L)).thenReturn(true);
+        when(fileRepository.findForExport(7L, 3L, 4L, from, to)).thenReturn(files);
+
+        assertThat(service.selectFiles(7L, 3L, 4L, from, to)).isSameAs(files);
+        verify(fileRepository).findForExport(7L, 3L, 4L, from, to);
+    }
+
+    @Test
+    void unknownPatientIsNotFound() {
+        assertThatThrownBy(() -> service.selectFiles(7L, null, null, null, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void formulaPrefixesAreNeutralized() {
+        assertThat(PatientExportServices.csv("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(PatientExportServices.csv("+55 11 9999")).isEqualTo("\"'+55 11 9999\"");
+        assertThat(PatientExportServices.csv("-2+3")).isEqualTo("\"'-2+3\"");
+        assertThat(PatientExportServices.csv("@SUM(A1)")).isEqualTo("\"'@SUM(A1)\"");
+        assertThat(PatientExportServices.csv("\t=1")).isEqualTo("\"'\t=1\"");
+        assertThat(PatientExportServices.csv("Raio-X = ok")).isEqualTo("\"Raio-X = ok\"");
+        assertThat(PatientExportServices.csv("")).isEqualTo("\"\"");
+        assertThat(PatientExportServices.csv(null)).isEmpty();
+    }
+
+    @Test
+    void manifestListsEveryDocumentWithEscapedText() throws Exception {
+        File stored = file(1L, "Laudo", "=cmd|'/c calc'!A1");
+        File missing = file(2L, "@Receita", "Sem conteúdo");
+        missing.setContentHash("b".repeat(64));
+        when(storage.exists(anyString())).thenAnswer(call -> !call.getArgument(0, String.class).startsWith("b"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeZip(List.of(stored, missing), out);
+
+        String manifest = null;
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("manifest.csv")) {
+                    manifest = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        assertThat(entries).containsExactly("documentos/1-laudo.pdf", "manifest.csv");
+        assertThat(manifest).contains("\"'=cmd|'/c calc'!A1\"")
+                .contains("\"'@Receita\"")
+                .contains(",missing\r\n");
+    }
+
+    private static File file(Long id, String title, String description) {
+        Hospital hospital = new Hospital();
+        hospital.setId(3L);
+        hospital.setName("Hospital Central");
+        File file = new File();
+        file.setId(id);
+        file.setTitle(title);
+        file.setDescription(description);
+        file.setFileName("laudo.pdf");
+        file.setFileDate(LocalDate.of(2024, 3, 1));
+        file.setContentHash("a".repeat(64));
+        file.setHospital(hospital);
+        return file;
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.exception.ResourceNotFoundException;
+import br.com.elysium.GestCare.model.File;
+import br.com.elysium.GestCare.model.FileType;
+import br.com.elysium.GestCare.model.Hospital;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.repositories.FileTypeRepository;
+import br.com.elysium.GestCare.repositories.HospitalRepository;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.storage.ContentCodec;
+import br.com.elysium.GestCare.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Exclusão de paciente de ponta a ponta no H2 (modo MySQL): soft delete esconde os documentos, o purge apaga tudo
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:purge;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "gestcare.purge.enabled=false"
+})
+// O contexto usa o diretório temporário da classe: fecha junto com ela
+@DirtiesContext
+class PatientPurgeServicesTests {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("gestcare.storage.local.root", () -> dir.resolve("uploads").toString());
+        registry.add("gestcare.search.index-dir", () -> dir.resolve("search-index").toString());
+        registry.add("gestcare.search.patient-index-dir", () -> dir.resolve("patient-index").toString());
+        registry.add("gestcare.reconciler.dir", () -> dir.resolve("reconciler").toString());
+    }
+
+    @Autowired
+    private PatientServices patientServices;
+
+    @Autowired
+    private PatientPurgeServices patientPurgeServices;
+
+    @Autowired
+    private FileServices fileServices;
+
+    @Autowired
+    private FileContentServices fileContentServices;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileTypeRepository fileTypeRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void softDeletedPatientsDocumentsAreNotFound() throws Exception {
+        Hospital hospital = hospital(patient());
+        File file = upload(hospital, "laudo-excluido");
+        Long patientId = hospital.getPatient().getId();
+
+        patientServices.delete(patientId);
+
+        assertThatThrownBy(() -> fileContentServices.serve(file.getId(), null,
+                new MockHttpServletRequest("GET", "/file/" + file.getId() + "/content"), new MockHttpServletResponse()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> fileContentServices.serve(file.getId(), patientId,
+                new MockHttpServletRequest("GET", "/file/" + file.getId() + "/content"), new MockHttpServletResponse()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(fileServices.getFilesByPatient(patientId, null, 10).items()).isEmpty();
+        // A linha continua lá até o purge: a contagem de referências do conteúdo ainda a enxerga
+        assertThat(fileRepository.countByContentHash(file.getContentHash())).isEqualTo(1);
+        // Reaproveitamento do conteúdo (dedup) continua achando a cópia sem carregar o hospital excluído
+        assertThat(fileRepository.findStoredByContentHash(file.getContentHash(), Limit.of(1)))
+                .singleElement().satisfies(row -> assertThat(row.id()).isEqualTo(file.getId()));
+        assertThatCode(() -> upload(hospital(patient()), "laudo-excluido")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void purgeRemovesRowsAndUnsharedContent() throws Exception {
+        Hospital deletedHospital = hospital(patient());
+        Hospital keptHospital = hospital(patient());
+        File own = upload(deletedHospital, "so-do-excluido");
+        File shared = upload(deletedHospital, "compartilhado");
+        File keptCopy = upload(keptHospital, "compartilhado");
+        Long patientId = deletedHospital.getPatient().getId();
+
+        patientServices.delete(patientId);
+        patientPurgeServices.purge();
+
+        assertThat(count("SELECT COUNT(*) FROM patient WHERE id = ?", patientId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM hospital WHERE paciente_id = ?", patientId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM file WHERE id IN (?, ?)", own.getId(), shared.getId())).isZero();
+        assertThat(storage.exists(key(own))).isFalse();
+        // Mesmo conteúdo ainda referenciado por outro paciente: continua armazenado e acessível
+        assertThat(storage.exists(key(keptCopy))).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileContentServices.serve(keptCopy.getId(), keptHospital.getPatient().getId(),
+                new MockHttpServletRequest("GET", "/file/" + keptCopy.getId() + "/content"), response);
+        assertThat(response.getContentAsString()).isEqualTo("compartilhado");
+    }
+
+    private Patient patient() {
+        int n = SEQUENCE.incrementAndGet();
+        Patient patient = new Patient();
+        patient.setName("Paciente" + n);
+        patient.setLastName("Teste");
+        patient.setCpf(String.format("%011d", n));
+        patient.setBirthDate(LocalDate.of(1990, 1, 1));
+        patient.setPassword("senha-de-teste");
+        patient.setGender(1);
+        return patientRepository.save(patient);
+    }
+
+    private Hospital hospital(Patient patient) {
+        Hospital hospital = new Hospital();
+        hospital.setName("Hospital " + patient.getName());
+        hospital.setPatient(patient);
+        return hospitalRepository.save(hospital);
+    }
+
+    private File upload(Hospital hospital, String content) {
+        FileType fileType = fileTypeRepository.findAll().stream().findFirst().orElseGet(() -> {
+            FileType created = new FileType();
+            created.setName("Laudo");
+            return fileTypeRepository.save(created);
+        });
+        MockMultipartFile multipart = new MockMultipartFile("file", content + ".txt", "text/plain",
+                content.getBytes(StandardCharsets.UTF_8));
+        return fileServices.saveFile(multipart, hospital.getId(), fileType.getId(), "2024-03-01", "Documento de teste");
+    }
+
+    private String key(File file) {
+        return ContentCodec.key(file.getContentHash(), file.getContentEncoding());
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
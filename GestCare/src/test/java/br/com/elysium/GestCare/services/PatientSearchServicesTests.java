@@ -0,0 +1,145 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.dto.PatientSearchHit;
+import br.com.elysium.GestCare.model.Patient;
+import br.com.elysium.GestCare.model.SearchIndexJob;
+import br.com.elysium.GestCare.repositories.PatientRepository;
+import br.com.elysium.GestCare.repositories.SearchIndexJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientSearchServicesTests {
+
+    @TempDir
+    Path indexDir;
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final SearchIndexJobRepository jobRepository = mock(SearchIndexJobRepository.class);
+    private final AtomicLong jobIds = new AtomicLong();
+    private PatientSearchServices service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(jobRepository.save(any(SearchIndexJob.class))).thenAnswer(call -> withId(call.getArgument(0)));
+        when(jobRepository.saveAll(anyList())).thenAnswer(call ->
+                call.<List<SearchIndexJob>>getArgument(0).stream().map(this::withId).toList());
+        when(patientRepository.findById(anyLong())).thenReturn(Optional.empty());
+        service = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.stop();
+    }
+
+    // O job do cadastro só sai da tabela depois do commit do índice que o contém
+    @Test
+    void savedPatientJobIsRemovedOnlyAfterTheCommit() throws Exception {
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient(1L, "João", "Ferreira")));
+
+        service.onPatientSaved(new PatientSavedEvent(1L));
+
+        assertThat(ids("joao")).containsExactly(1L);
+        verify(jobRepository, never()).deleteAllByIdInBatch(any());
+        service.commit();
+        verify(jobRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    // Importação em lote também deixa os jobs até o commit
+    @Test
+    void importedPatientsAreIndexedWithJobs() throws Exception {
+        service.indexAll(List.of(patient(1L, "Ana", "Souza"), patient(2L, "Ana", "Lima")));
+
+        assertThat(ids("ana")).containsExactly(1L, 2L);
+        service.commit();
+        verify(jobRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    // Queda antes do commit: o job pendente é reaplicado na subida
+    @Test
+    void pendingJobIsReplayedOnStartup() throws Exception {
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient(1L, "Maria", "Silva")));
+        when(patientRepository.count()).thenReturn(1L);
+        when(jobRepository.findByTargetInAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(withId(new SearchIndexJob(SearchIndexJob.Target.PATIENT, 1L))));
+
+        service.reconcile();
+
+        assertThat(ids("maria")).containsExactly(1L);
+        verify(jobRepository).deleteAllByIdInBatch(List.of(1L));
+        // Contagem em dia: nada de reconstruir
+        verify(patientRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class));
+    }
+
+    // Índice com pacientes a mais (exclusão perdida) é reconstruído, e os que sobraram saem
+    @Test
+    void countMismatchRebuildsAndSweepsStalePatients() throws Exception {
+        service.indexAll(List.of(patient(1L, "Carlos", "Souza"), patient(2L, "Carlos", "Lima")));
+        service.commit();
+        service.stop();
+
+        when(patientRepository.count()).thenReturn(1L);
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(patient(1L, "Carlos", "Souza")));
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Limit.class))).thenReturn(List.of());
+        service = open();
+        service.reconcile();
+
+        assertThat(ids("carlos")).containsExactly(1L);
+    }
+
+    private PatientSearchServices open() throws Exception {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        PatientSearchServices opened = new PatientSearchServices();
+        ReflectionTestUtils.setField(opened, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(opened, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(opened, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(opened, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(opened, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(opened, "maxPageSize", 100);
+        opened.start();
+        return opened;
+    }
+
+    private List<Long> ids(String text) throws Exception {
+        return service.search(text, null, 10).items().stream().map(PatientSearchHit::id).toList();
+    }
+
+    private SearchIndexJob withId(SearchIndexJob job) {
+        job.setId(jobIds.incrementAndGet());
+        return job;
+    }
+
+    private Patient patient(Long id, String name, String lastName) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName(name);
+        patient.setLastName(lastName);
+        return patient;
+    }
+}
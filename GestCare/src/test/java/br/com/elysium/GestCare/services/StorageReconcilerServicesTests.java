@@ -0,0 +1,154 @@
+package br.com.elysium.GestCare.services;
+
+import br.com.elysium.GestCare.config.WorkerThreads;
+import br.com.elysium.GestCare.repositories.FileRepository;
+import br.com.elysium.GestCare.storage.LocalStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageReconcilerServicesTests {
+
+    private static final String REFERENCED = "3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b";
+    private static final String ORPHAN = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path storageRoot;
+
+    @TempDir
+    Path reconcilerDir;
+
+    private final StorageReconcilerServices service = new StorageReconcilerServices();
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    // Hashes que a tabela file referencia
+    private final TreeSet<String> referenced = new TreeSet<>();
+    private LocalStorageBackend storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalStorageBackend(storageRoot);
+        when(fileRepository.findContentHashesBetween(anyString(), anyString(), any(Limit.class))).thenAnswer(call -> {
+            String after = call.getArgument(0);
+            String to = call.getArgument(1);
+            int max = call.<Limit>getArgument(2).max();
+            return referenced.subSet(after, false, to, false).stream().limit(max).toList();
+        });
+        when(fileRepository.existsByContentHash(anyString())).thenAnswer(call -> referenced.contains(call.<String>getArgument(0)));
+
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "fileServices", new FileServices());
+        ReflectionTestUtils.setField(service, "storage", storage);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "workerThreads", new WorkerThreads());
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        ReflectionTestUtils.setField(service, "maxFilesPerSecond", 0);
+        ReflectionTestUtils.setField(service, "graceMinutes", 60L);
+        ReflectionTestUtils.setField(service, "quarantine", true);
+        ReflectionTestUtils.setField(service, "reconcilerDir", reconcilerDir.toString());
+        service.registerMetrics();
+    }
+
+    @Test
+    void referencedContentIsNeverQuarantined() throws Exception {
+        referenced.add(REFERENCED);
+        Path stored = store(REFERENCED, Duration.ofDays(30));
+
+        service.reconcile();
+
+        assertThat(stored).exists();
+        assertThat(report()).isEmpty();
+    }
+
+    @Test
+    void orphanContentIsQuarantined() throws Exception {
+        Path stored = store(ORPHAN, Duration.ofDays(30));
+
+        service.reconcile();
+
+        assertThat(stored).doesNotExist();
+        assertThat(quarantined()).containsExactly(ORPHAN);
+        assertThat(report()).containsExactly("QUARANTINED " + stored);
+    }
+
+    // Upload em andamento: conteúdo recente ainda sem File não é órfão
+    @Test
+    void recentContentIsLeftAlone() throws Exception {
+        Path stored = store(ORPHAN, Duration.ofMinutes(5));
+
+        service.reconcile();
+
+        assertThat(stored).exists();
+        assertThat(report()).isEmpty();
+    }
+
+    @Test
+    void rowWithoutContentIsReported() throws Exception {
+        referenced.add(REFERENCED);
+        when(fileRepository.findIdsByContentHash(REFERENCED)).thenReturn(List.of(42L, 43L));
+
+        service.reconcile();
+
+        assertThat(report()).containsExactly("MISSING " + REFERENCED + " files=[42, 43]");
+    }
+
+    // Conteúdo comprimido (<hash>.gz) conta como o próprio hash: presente e referenciado
+    @Test
+    void compressedKeyMapsToItsHash() throws Exception {
+        referenced.add(REFERENCED);
+        Path compressed = store(REFERENCED + ".gz", Duration.ofDays(30));
+        Path orphan = store(ORPHAN + ".gz", Duration.ofDays(30));
+
+        service.reconcile();
+
+        assertThat(compressed).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(quarantined()).containsExactly(ORPHAN + ".gz");
+        assertThat(report()).containsExactly("QUARANTINED " + orphan);
+    }
+
+    private Path store(String key, Duration age) throws IOException {
+        Path path = storage.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, "conteudo");
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(age)));
+        return path;
+    }
+
+    private List<String> report() throws IOException {
+        try (Stream<Path> reports = Files.list(reconcilerDir)) {
+            Path report = reports.filter(path -> path.getFileName().toString().startsWith("report-"))
+                    .findFirst().orElseThrow();
+            return Files.readAllLines(report);
+        }
+    }
+
+    private Set<String> quarantined() throws IOException {
+        Path quarantine = reconcilerDir.resolve("quarantine");
+        if (!Files.isDirectory(quarantine)) {
+            return Set.of();
+        }
+        try (Stream<Path> files = Files.walk(quarantine)) {
+            return new TreeSet<>(files.filter(Files::isRegularFile).map(path -> path.getFileName().toString()).toList());
+        }
+    }
+}
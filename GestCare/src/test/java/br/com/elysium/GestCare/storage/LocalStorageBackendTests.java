@@ -0,0 +1,27 @@
+package br.com.elysium.GestCare.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalStorageBackendTests extends StorageBackendContractTests {
+
+    @TempDir
+    Path root;
+
+    @Override
+    StorageBackend backend() {
+        return new LocalStorageBackend(root);
+    }
+
+    @Test
+    void contentIsPartitionedByHashPrefix() {
+        LocalStorageBackend storage = new LocalStorageBackend(root);
+
+        assertThat(storage.location(KEY)).isEqualTo("3a/7b/" + KEY);
+        assertThat(storage.resolve(KEY)).isEqualTo(root.toAbsolutePath().resolve("3a/7b/" + KEY));
+    }
+}
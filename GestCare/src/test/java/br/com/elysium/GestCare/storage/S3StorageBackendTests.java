@@ -0,0 +1,128 @@
+package br.com.elysium.GestCare.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// O mesmo contrato do disco local, contra um S3 mínimo em memória (PUT/GET/HEAD/DELETE, Range)
+class S3StorageBackendTests extends StorageBackendContractTests {
+
+    private static final String BUCKET = "gestcare";
+
+    private HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile int forcedStatus;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Override
+    StorageBackend backend() {
+        return new S3StorageBackend("http://localhost:" + server.getAddress().getPort() + "/",
+                BUCKET, "sa-east-1", "AKIDEXEMPLO", "segredo");
+    }
+
+    // URL no estilo path (endpoint/bucket/chave) e toda requisição assinada com SigV4
+    @Test
+    void requestsArePathStyleAndSigned() throws IOException {
+        StorageBackend storage = backend();
+        storage.store(KEY, Files.writeString(workDir.resolve("laudo.tmp"), "x"));
+
+        assertThat(requests).containsExactly("HEAD /" + BUCKET + "/" + KEY, "PUT /" + BUCKET + "/" + KEY);
+        assertThat(authorizations).allSatisfy(authorization -> assertThat(authorization)
+                .matches("AWS4-HMAC-SHA256 Credential=AKIDEXEMPLO/\\d{8}/sa-east-1/s3/aws4_request, "
+                        + "SignedHeaders=host;x-amz-content-sha256;x-amz-date, Signature=[0-9a-f]{64}"));
+        assertThat(storage.location(KEY)).isEqualTo("s3://" + BUCKET + "/" + KEY);
+    }
+
+    @Test
+    void serverErrorsSurfaceAsIOException() {
+        StorageBackend storage = backend();
+        forcedStatus = 503;
+
+        assertThatThrownBy(() -> storage.exists(KEY)).isInstanceOf(IOException.class).hasMessageContaining("503");
+        assertThatThrownBy(() -> storage.open(KEY)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> storage.delete(KEY)).isInstanceOf(IOException.class);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            requests.add(method + " " + path);
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+
+            if (forcedStatus != 0) {
+                exchange.sendResponseHeaders(forcedStatus, -1);
+                return;
+            }
+            if (!path.startsWith("/" + BUCKET + "/")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String key = path.substring(BUCKET.length() + 2);
+            byte[] object = objects.get(key);
+
+            switch (method) {
+                case "PUT" -> {
+                    objects.put(key, exchange.getRequestBody().readAllBytes());
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "HEAD" -> {
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "GET" -> {
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    int status = 200;
+                    if (range != null) {
+                        String[] bounds = range.substring("bytes=".length()).split("-");
+                        object = Arrays.copyOfRange(object, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+                        status = 206;
+                    }
+                    exchange.sendResponseHeaders(status, object.length);
+                    exchange.getResponseBody().write(object);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.elysium.GestCare.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Comportamento que FileServices, FileContentServices e PreviewServices esperam de qualquer backend
+abstract class StorageBackendContractTests {
+
+    static final String KEY = "3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b";
+
+    @TempDir
+    Path workDir;
+
+    abstract StorageBackend backend();
+
+    @Test
+    void storedContentCanBeReadBack() throws IOException {
+        StorageBackend storage = backend();
+        Path source = source("conteúdo do laudo");
+
+        storage.store(KEY, source);
+
+        assertThat(source).doesNotExist();
+        assertThat(storage.exists(KEY)).isTrue();
+        assertThat(storage.size(KEY)).isEqualTo("conteúdo do laudo".getBytes(StandardCharsets.UTF_8).length);
+        assertThat(read(storage.open(KEY))).isEqualTo("conteúdo do laudo");
+    }
+
+    // Chave = hash do conteúdo: a segunda gravação só descarta a origem
+    @Test
+    void storingAnExistingKeyKeepsTheOriginal() throws IOException {
+        StorageBackend storage = backend();
+        storage.store(KEY, source("original"));
+        Path again = source("duplicado");
+
+        storage.store(KEY, again);
+
+        assertThat(again).doesNotExist();
+        assertThat(read(storage.open(KEY))).isEqualTo("original");
+    }
+
+    @Test
+    void rangeReadsOnlyTheRequestedBytes() throws IOException {
+        StorageBackend storage = backend();
+        storage.store(KEY, source("0123456789"));
+
+        assertThat(read(storage.openRange(KEY, 2, 5))).isEqualTo("23456");
+        assertThat(read(storage.openRange(KEY, 9, 1))).isEqualTo("9");
+    }
+
+    @Test
+    void missingKey() throws IOException {
+        StorageBackend storage = backend();
+
+        assertThat(storage.exists(KEY)).isFalse();
+        assertThatThrownBy(() -> storage.open(KEY)).isInstanceOf(IOException.class);
+        // Remover o que não existe não é erro (purge e reconciliador repetem remoções)
+        storage.delete(KEY);
+    }
+
+    @Test
+    void deleteRemovesOnlyThatKey() throws IOException {
+        StorageBackend storage = backend();
+        String thumbnail = KEY + "-thumb";
+        storage.store(KEY, source("documento"));
+        storage.store(thumbnail, source("miniatura"));
+
+        storage.delete(KEY);
+
+        assertThat(storage.exists(KEY)).isFalse();
+        assertThat(read(storage.open(thumbnail))).isEqualTo("miniatura");
+    }
+
+    // Chaves derivadas do hash (comprimido, miniatura) convivem com a original
+    @Test
+    void derivedKeysAreIndependent() throws IOException {
+        StorageBackend storage = backend();
+        storage.store(KEY + ".gz", source("comprimido"));
+
+        assertThat(storage.exists(KEY)).isFalse();
+        assertThat(storage.exists(KEY + ".gz")).isTrue();
+        assertThat(storage.location(KEY)).isNotEqualTo(storage.location(KEY + ".gz"));
+    }
+
+    private Path source(String content) throws IOException {
+        Path source = Files.createTempFile(workDir, "upload-", ".tmp");
+        Files.writeString(source, content);
+        return source;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}